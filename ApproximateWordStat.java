@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * A class that keeps approximate word statistics in memory fixed when it is created, for text
+ * whose vocabulary is too large to count exactly. Word counts are estimated by a CountMinSketch
+ * and the most common words are found by a SpaceSaving over a fixed number of words
+ * @author Shravani Suram
+ */
+public class ApproximateWordStat {
+    /** stores the estimated count of every word */
+    private CountMinSketch sketch;
+    /** stores the most frequent words */
+    private SpaceSaving heavyHitters;
+
+    /**
+     * Creates an empty ApproximateWordStat
+     * @param epsilon the largest overestimate of a word count as a fraction of all words added
+     * @param delta the probability of a word count exceeding that error
+     * @param heavyHitters the number of frequent words tracked for mostCommonWords
+     * @throws IllegalArgumentException
+     *         if epsilon or delta is not between 0 and 1, or heavyHitters is not positive
+     */
+    public ApproximateWordStat(double epsilon, double delta, int heavyHitters) {
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.heavyHitters = new SpaceSaving(heavyHitters);
+    }
+
+    /**
+     * Normalizes the text and adds its words to the statistics
+     * @param text the text to add
+     */
+    public void addText(String[] text) {
+        Tokenizer.stream(text, this::count);
+    }
+
+    /**
+     * Normalizes a file and adds its words to the statistics
+     * @param file the text file to add
+     * @throws IOException if the file cannot be read
+     */
+    public void addFile(String file) throws IOException {
+        Tokenizer.stream(file, Charset.defaultCharset(), this::count);
+    }
+
+    /**
+     * Adds a normalized word to the sketch and the heavy hitters
+     * @param word the normalized word
+     */
+    private void count(String word) {
+        sketch.add(word, 1);
+        heavyHitters.add(word);
+    }
+
+    /**
+     * Estimates the number of times a word appears in the text. The estimate is never below the
+     * true count; a word never added may still get a positive estimate from words sharing its cells
+     * @param word the normalized word
+     * @return the estimated frequency of the word, 0 only if the word was never added
+     */
+    public long wordCount(String word) {
+        long estimate = sketch.estimate(word);
+        long tracked = heavyHitters.count(word);
+        /** both are overestimates, so the smaller is closer */
+        return tracked >= 0 ? Math.min(estimate, tracked) : estimate;
+    }
+
+    /**
+     * Returns k words with the highest estimated frequencies
+     * @param k the number of words to return
+     * @return k words by descending estimated frequency, words of equal estimate in alphabetical order
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of words tracked
+     */
+    public String[] mostCommonWords(int k) {
+        return heavyHitters.top(k);
+    }
+
+    /**
+     * Returns the number of words added
+     * @return the number of words
+     */
+    public long tokens() {
+        return sketch.total();
+    }
+}
@@ -0,0 +1,664 @@
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class that times the Tokenizer, the hash tables and WordStat queries on generated Zipf corpora.
+ * Every case is run a few times to warm up the JIT before the timed runs, and results are reported
+ * as the mean of the timed runs
+ *
+ * Usage: java Benchmark [tokens] [iterations]
+ * The same cases run under JMH with: mvn -B -Pjmh test
+ * @author Shravani Suram
+ */
+public class Benchmark {
+    /**
+     * nested interface representing one timed operation
+     */
+    private interface Case {
+        /**
+         * Runs the operation once
+         * @return a value depending on the work done, so it cannot be optimized away
+         * @throws Exception if the operation fails
+         */
+        long run() throws Exception;
+    }
+
+    /** Seed of every generated corpus */
+    private static final long SEED = 42;
+    /** Number of untimed runs of every case */
+    private static final int WARMUP = 3;
+
+    /** stores the number of timed runs of every case */
+    private static int iterations = 5;
+    /** stores the results of every run so they cannot be optimized away */
+    private static long sink;
+
+    /**
+     * Runs every benchmark
+     * @param args the number of tokens in the generated corpora and the number of timed runs
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        int tokens = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        if (args.length > 1) {
+            iterations = Integer.parseInt(args[1]);
+        }
+        Path file = Files.createTempFile("zipf", ".txt");
+        try {
+            new ZipfCorpus(100_000, 1.0, SEED).write(file, tokens);
+            String[] lines = new ZipfCorpus(100_000, 1.0, SEED).lines(tokens);
+            tokenizer(file, lines);
+            tables(tokens);
+            concurrentTable(tokens);
+            wordStat(file, lines);
+            sharded(lines);
+            pipeline(lines);
+            snapshotReads(lines);
+            windowed(tokens);
+            approximate(tokens);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Measures Tokenizer throughput on a file and on an array
+     * @param file the generated corpus file
+     * @param lines the same kind of corpus as lines of text
+     * @throws Exception if a benchmark fails
+     */
+    private static void tokenizer(Path file, String[] lines) throws Exception {
+        double megabytes = Files.size(file) / 1e6;
+        double seconds = time(() -> new Tokenizer(file.toString()).wordList().size());
+        report("Tokenizer(String)", megabytes / seconds, "MB/s");
+        seconds = time(() -> {
+            long[] count = new long[1];
+            Tokenizer.stream(file.toString(), StandardCharsets.UTF_8, word -> count[0]++);
+            return count[0];
+        });
+        report("Tokenizer.stream(String, UTF-8)", megabytes / seconds, "MB/s");
+        seconds = time(() -> {
+            long[] count = new long[1];
+            Tokenizer.stream(file.toString(), StandardCharsets.UTF_8, (buf, off, len) -> count[0]++);
+            return count[0];
+        });
+        report("Tokenizer.stream(String, UTF-8, TokenSink)", megabytes / seconds, "MB/s");
+        TextNormalizer unicode = new TextNormalizer(true, TextNormalizer.Case.FOLD, " \n\t\r", "'-");
+        seconds = time(() -> {
+            long[] count = new long[1];
+            Tokenizer.stream(file.toString(), StandardCharsets.UTF_8, unicode, (buf, off, len) -> count[0]++);
+            return count[0];
+        });
+        report("Tokenizer.stream(String, UTF-8, NFKC, TokenSink)", megabytes / seconds, "MB/s");
+        long chars = 0;
+        for (String line : lines) {
+            chars += line.length() + 1;
+        }
+        double arrayMegabytes = chars / 1e6;
+        seconds = time(() -> new Tokenizer(lines).wordList().size());
+        report("Tokenizer(String[])", arrayMegabytes / seconds, "MB/s");
+    }
+
+    /**
+     * Measures HashTable and IntCounterTable put and get at several vocabulary sizes and skews
+     * @param tokens the number of keys put per run
+     * @throws Exception if a benchmark fails
+     */
+    private static void tables(int tokens) throws Exception {
+        int[] vocabularies = {1_000, 100_000, 1_000_000};
+        double[] skews = {0.8, 1.0, 1.2};
+        for (int vocabulary : vocabularies) {
+            for (double skew : skews) {
+                String[] keys = new ZipfCorpus(vocabulary, skew, SEED).words(tokens);
+                String label = " V=" + vocabulary + " s=" + skew;
+                HashTable<Integer> hashTable = new HashTable<Integer>();
+                report("HashTable.put" + label, tokens / time(() -> {
+                    HashTable<Integer> table = new HashTable<Integer>();
+                    for (String key : keys) {
+                        table.put(key, 1);
+                    }
+                    return table.size();
+                }), "ops/s");
+                for (String key : keys) {
+                    hashTable.put(key, 1);
+                }
+                report("HashTable.get" + label, tokens / time(() -> {
+                    long sum = 0;
+                    for (String key : keys) {
+                        sum += hashTable.get(key);
+                    }
+                    return sum;
+                }), "ops/s");
+                report("IntCounterTable.put" + label, tokens / time(() -> {
+                    IntCounterTable table = new IntCounterTable();
+                    for (String key : keys) {
+                        table.put(key, 1);
+                    }
+                    return table.size();
+                }), "ops/s");
+                IntCounterTable intTable = new IntCounterTable();
+                for (String key : keys) {
+                    intTable.put(key, 1);
+                }
+                report("IntCounterTable.get" + label, tokens / time(() -> {
+                    long sum = 0;
+                    for (String key : keys) {
+                        sum += intTable.get(key);
+                    }
+                    return sum;
+                }), "ops/s");
+                report("IntCounterTable keys" + label, (double) intTable.getKeyMemory() / intTable.size(), "bytes/word");
+            }
+        }
+    }
+
+    /**
+     * Measures ConcurrentCounterTable throughput as writer threads are added, first checking that
+     * writers contending on the same keys lose no adds
+     * @param tokens the number of keys put per run, split between the writers
+     * @throws Exception if a benchmark fails or a count is wrong
+     */
+    private static void concurrentTable(int tokens) throws Exception {
+        String[] keys = new ZipfCorpus(100_000, 1.0, SEED).words(tokens);
+        IntCounterTable expected = new IntCounterTable();
+        for (String key : keys) {
+            expected.put(key, 1);
+        }
+        double single = 0;
+        for (int writers = 1; writers <= 16; writers *= 2) {
+            int threads = writers;
+            /** every writer also adds to one hot key, so all of them contend on it */
+            ConcurrentCounterTable checked = fill(keys, threads, true);
+            if (checked.size() != expected.size() + 1 || checked.get("") != keys.length) {
+                throw new IllegalStateException("lost adds with " + writers + " writers");
+            }
+            for (int id = 0; id < expected.size(); id++) {
+                if (checked.get(expected.keyAt(id)) != expected.valueAt(id)) {
+                    throw new IllegalStateException("wrong count of " + expected.keyAt(id) + " with " + writers + " writers");
+                }
+            }
+            double throughput = tokens / time(() -> fill(keys, threads, false).size());
+            report("ConcurrentCounterTable.put writers=" + writers, throughput, "ops/s");
+            if (writers == 1) {
+                single = throughput;
+            }
+            report("ConcurrentCounterTable.put speedup writers=" + writers, throughput / single, "x");
+        }
+        /** a WordStat made from the table has no order, so its token count must come from the frequencies */
+        Path file = Files.createTempFile("concurrent", ".wst");
+        try {
+            new WordStat(fill(keys, 4, false)).save(file);
+            if (WordStatSnapshot.open(file).tokens() != keys.length) {
+                throw new IllegalStateException("WordStat from a ConcurrentCounterTable lost its token count");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Adds every key to a new ConcurrentCounterTable from several threads at once
+     * @param keys the keys to add, split between the threads
+     * @param threads the number of writer threads
+     * @param hot whether every thread also adds the empty key once for every key it adds
+     * @return the filled table
+     * @throws InterruptedException if interrupted while waiting for the writers
+     */
+    private static ConcurrentCounterTable fill(String[] keys, int threads, boolean hot) throws InterruptedException {
+        ConcurrentCounterTable table = new ConcurrentCounterTable();
+        ArrayList<Thread> running = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < keys.length; i += threads) {
+                    table.put(keys[i], 1);
+                    if (hot) {
+                        table.put("", 1);
+                    }
+                }
+            });
+            thread.start();
+            running.add(thread);
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        return table;
+    }
+
+    /**
+     * Measures a ShardedWordStat whose shards are ShardServers on loopback sockets, first
+     * checking that it answers the same as a single WordStat of the same text
+     * @param lines the corpus as lines of text
+     * @throws Exception if a benchmark fails or the shards answer differently
+     */
+    private static void sharded(String[] lines) throws Exception {
+        int shards = 4;
+        ArrayList<ShardServer> servers = new ArrayList<ShardServer>();
+        ArrayList<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        try {
+            for (int i = 0; i < shards; i++) {
+                servers.add(ShardServer.loopback(i, shards));
+                addresses.add(servers.get(i).getAddress());
+            }
+            try (ShardedWordStat stat = new ShardedWordStat(new SocketShardTransport(addresses))) {
+                long start = System.nanoTime();
+                stat.addText(lines);
+                report("ShardedWordStat.addText shards=" + shards, (System.nanoTime() - start) / 1e6, "ms");
+                WordStat single = new WordStat(lines);
+                if (stat.size() != single.size()) {
+                    throw new IllegalStateException("sharded size " + stat.size() + " != " + single.size());
+                }
+                String[] probes = new ZipfCorpus(100_000, 1.0, SEED + 1).words(1000);
+                for (String word : probes) {
+                    int count = single.wordId(word) < 0 ? 0 : single.wordCount(word);
+                    if ((count == 0 ? 0 : stat.wordCount(word)) != count || stat.wordRank(word) != single.wordRank(word)) {
+                        throw new IllegalStateException("sharded count or rank of " + word);
+                    }
+                }
+                /** equal counts are ordered alphabetically by the shards and by last sighting here, so counts are compared */
+                String[] top = stat.mostCommonWords(100);
+                String[] expected = single.mostCommonWords(100);
+                for (int i = 0; i < top.length; i++) {
+                    if (single.wordCount(top[i]) != single.wordCount(expected[i])) {
+                        throw new IllegalStateException("sharded mostCommonWords differs at " + i);
+                    }
+                }
+                report("ShardedWordStat.wordRank shards=" + shards, time(() -> {
+                    long sum = 0;
+                    for (String word : probes) {
+                        sum += stat.wordRank(word);
+                    }
+                    return sum;
+                }) * 1e6 / probes.length, "us/op");
+                report("ShardedWordStat.mostCommonWords(100) shards=" + shards,
+                        time(() -> stat.mostCommonWords(100).length) * 1e6, "us/op");
+            }
+        } finally {
+            for (ShardServer server : servers) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Measures a WordStatPipeline fed by an in-memory SubmissionPublisher, checking that it
+     * counts the same words as a WordStat of the same text, that snapshots follow the interval
+     * and that a producer is held back while counting is stalled
+     * @param lines the corpus as lines of text, one chunk each
+     * @throws Exception if a benchmark fails or the pipeline misbehaves
+     */
+    private static void pipeline(String[] lines) throws Exception {
+        int batchSize = 1024;
+        int prefetch = 4;
+        long snapshotEvery = 100_000;
+        ByteBuffer[] chunks = new ByteBuffer[lines.length];
+        long bytes = 0;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < lines.length; i++) {
+            chunks[i] = ByteBuffer.wrap((lines[i] + "\n").getBytes(StandardCharsets.UTF_8));
+            bytes += chunks[i].remaining();
+            if (i < lines.length - 1) {
+                fewest = Math.min(fewest, lines[i].split(" ").length);
+            }
+        }
+        WordStat expected = new WordStat(lines);
+        WordStat stat = new WordStat(new String[0]);
+        WordStatPipeline pipeline = new WordStatPipeline(stat, StandardCharsets.UTF_8, 10, batchSize, prefetch, snapshotEvery);
+        ArrayList<Long> snapshots = new ArrayList<Long>();
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.subscribe(new Flow.Subscriber<WordStatPipeline.Snapshot>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(WordStatPipeline.Snapshot snapshot) {
+                snapshots.add(snapshot.tokens());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                finished.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                finished.countDown();
+            }
+        });
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<ByteBuffer>();
+        publisher.subscribe(pipeline);
+        AtomicInteger submitted = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (ByteBuffer chunk : chunks) {
+                publisher.submit(chunk.duplicate());
+                submitted.incrementAndGet();
+            }
+            publisher.close();
+        });
+        int stalled;
+        /** counting needs the lock of the statistics, so holding it stalls the pipeline */
+        synchronized (stat) {
+            producer.start();
+            Thread.sleep(500);
+            stalled = submitted.get();
+        }
+        pipeline.done().get();
+        producer.join();
+        finished.await();
+        /** the publisher's buffer, the chunks prefetched and the words in queued, counting, filling and blocked batches */
+        int bound = publisher.getMaxBufferCapacity() + prefetch + (prefetch + 3) * batchSize / fewest + 2;
+        if (stalled > bound || stalled >= chunks.length) {
+            throw new IllegalStateException("pipeline took " + stalled + " chunks while stalled, bound " + bound);
+        }
+        if (stat.size() != expected.size() || Arrays.equals(stat.mostCommonWords(100), expected.mostCommonWords(100)) == false) {
+            throw new IllegalStateException("pipeline counted different words");
+        }
+        long tokens = 0;
+        for (String line : lines) {
+            tokens += line.isEmpty() ? 0 : line.split(" ").length;
+        }
+        /** snapshots follow every snapshotEvery words, within a batch, and the last one holds every word */
+        for (int i = 0; i < snapshots.size(); i++) {
+            long gap = snapshots.get(i) - (i == 0 ? 0 : snapshots.get(i - 1));
+            boolean last = i == snapshots.size() - 1;
+            if (gap <= 0 || (last == false && (gap < snapshotEvery || gap >= snapshotEvery + batchSize))) {
+                throw new IllegalStateException("snapshot " + i + " came " + gap + " words after the one before");
+            }
+        }
+        if (snapshots.isEmpty() || snapshots.get(snapshots.size() - 1) != tokens) {
+            throw new IllegalStateException("last snapshot does not hold every word");
+        }
+        report("WordStatPipeline chunks taken while stalled", stalled, "chunks");
+        report("WordStatPipeline", bytes / time(() -> {
+            WordStatPipeline timed = new WordStatPipeline(new WordStat(new String[0]), StandardCharsets.UTF_8, 10);
+            SubmissionPublisher<ByteBuffer> source = new SubmissionPublisher<ByteBuffer>();
+            source.subscribe(timed);
+            for (ByteBuffer chunk : chunks) {
+                source.submit(chunk.duplicate());
+            }
+            source.close();
+            return timed.done().get().size();
+        }) / 1e6, "MB/s");
+    }
+
+    /**
+     * Checks that threads querying an opened snapshot keep getting the same answers while
+     * another thread's phrase query loads the statistics onto the heap under them, then reports
+     * how long the rounds took
+     * @param lines the corpus as lines of text
+     * @throws Exception if a benchmark fails or a reader sees a wrong answer
+     */
+    private static void snapshotReads(String[] lines) throws Exception {
+        WordStat expected = new WordStat(lines);
+        String[] probes = new ZipfCorpus(100_000, 1.0, SEED + 2).words(200);
+        int[] counts = new int[probes.length];
+        int[] ranks = new int[probes.length];
+        for (int i = 0; i < probes.length; i++) {
+            counts[i] = expected.wordId(probes[i]) < 0 ? -1 : expected.wordCount(probes[i]);
+            ranks[i] = expected.wordRank(probes[i]);
+        }
+        String[] top = expected.mostCommonWords(10);
+        Path file = Files.createTempFile("snapshot", ".wst");
+        try {
+            expected.save(file);
+            int readers = 4;
+            long start = System.nanoTime();
+            for (int round = 0; round < 20; round++) {
+                WordStat stat = WordStat.open(file);
+                CountDownLatch go = new CountDownLatch(1);
+                ArrayList<Future<?>> running = new ArrayList<Future<?>>();
+                ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+                try {
+                    for (int r = 0; r < readers; r++) {
+                        running.add(pool.submit(() -> {
+                            go.await();
+                            for (int pass = 0; pass < 5; pass++) {
+                                for (int i = 0; i < probes.length; i++) {
+                                    int id = stat.wordId(probes[i]);
+                                    int count = id < 0 ? -1 : stat.wordCount(probes[i]);
+                                    if (count != counts[i] || stat.wordRank(probes[i]) != ranks[i]
+                                            || (id >= 0 && stat.word(id).equals(probes[i]) == false)) {
+                                        throw new IllegalStateException("snapshot read of " + probes[i] + " changed while loading");
+                                    }
+                                }
+                                if (stat.size() != expected.size() || Arrays.equals(stat.mostCommonWords(10), top) == false) {
+                                    throw new IllegalStateException("snapshot size or most common words changed while loading");
+                                }
+                            }
+                            return null;
+                        }));
+                    }
+                    /** a phrase query needs the order, so it loads the statistics onto the heap */
+                    running.add(pool.submit(() -> {
+                        go.await();
+                        return stat.phraseCount(top[0], top[1]);
+                    }));
+                    go.countDown();
+                    for (Future<?> reader : running) {
+                        reader.get();
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            report("WordStat snapshot reads while loading, readers=" + readers, (System.nanoTime() - start) / 1e6 / 20, "ms/round");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Measures WordStat construction and query latency
+     * @param file the generated corpus file
+     * @param lines the same kind of corpus as lines of text
+     * @throws Exception if a benchmark fails
+     */
+    private static void wordStat(Path file, String[] lines) throws Exception {
+        report("new WordStat(String)", time(() -> new WordStat(file.toString()).wordCount("a")) * 1e3, "ms");
+        report("new WordStat(String[])", time(() -> new WordStat(lines).wordCount("a")) * 1e3, "ms");
+        report("WordStat.parallel(String)", time(() -> WordStat.parallel(file.toString()).wordCount("a")) * 1e3, "ms");
+        report("WordStat.builder().build(String)", time(() -> WordStat.builder().build(file.toString()).wordCount("a")) * 1e3, "ms");
+        report("WordStat heap", retained(() -> new WordStat(file.toString())) / 1e6, "MB");
+        report("WordStat.builder() heap", retained(() -> WordStat.builder().build(file.toString())) / 1e6, "MB");
+
+        WordStat stat = new WordStat(file.toString());
+        ZipfCorpus corpus = new ZipfCorpus(100_000, 1.0, SEED);
+        String[] probes = corpus.words(1000);
+        report("WordStat.mostCommonWords(100)", time(() -> stat.mostCommonWords(100).length) * 1e6, "us/op");
+        report("WordStat.wordRank", time(() -> {
+            long sum = 0;
+            for (String word : probes) {
+                sum += stat.wordRank(word);
+            }
+            return sum;
+        }) * 1e6 / probes.length, "us/op");
+        report("WordStat.wordsByRank(1000, 1100)", time(() -> stat.wordsByRank(1000, 1100).length) * 1e6, "us/op");
+        report("WordStat.frequencyCount", time(() -> {
+            long sum = 0;
+            for (int n = 1; n <= 1000; n++) {
+                sum += stat.frequencyCount(n);
+            }
+            return sum;
+        }) * 1e6 / 1000, "us/op");
+        Random random = new Random(SEED);
+        report("WordStat.mostCommonCollocations(10)", time(() -> {
+            String word = corpus.word(random.nextInt(100));
+            return stat.mostCommonCollocations(10, word, random.nextBoolean()).length;
+        }) * 1e6, "us/op");
+        report("WordStat.phraseCount(2)", time(() -> {
+            return stat.phraseCount(corpus.word(random.nextInt(10)), corpus.word(random.nextInt(1000)));
+        }) * 1e6, "us/op");
+        report("WordStat.mostCommonNgrams(3, 100)", time(() -> stat.mostCommonNgrams(3, 100).length) * 1e3, "ms");
+        report("WordStat.wordsWithPrefix(10)", time(() -> {
+            String word = corpus.word(random.nextInt(1000));
+            return stat.wordsWithPrefix(word.substring(0, Math.min(2, word.length())), 10).length;
+        }) * 1e6, "us/op");
+    }
+
+    /**
+     * Measures WindowedWordStat event throughput and query latency on a window of 60 slices
+     * @param tokens the number of words streamed per run, one per millisecond
+     * @throws Exception if a benchmark fails
+     */
+    private static void windowed(int tokens) throws Exception {
+        String[] keys = new ZipfCorpus(100_000, 1.0, SEED).words(tokens);
+        long window = Math.max(tokens / 10, 60);
+        report("WindowedWordStat.add", tokens / time(() -> {
+            WindowedWordStat stat = new WindowedWordStat(window, 60);
+            for (int i = 0; i < keys.length; i++) {
+                stat.add(keys[i], i);
+            }
+            return stat.size();
+        }), "ops/s");
+        WindowedWordStat stat = new WindowedWordStat(window, 60);
+        for (int i = 0; i < keys.length; i++) {
+            stat.add(keys[i], i);
+        }
+        report("WindowedWordStat.mostCommonWords(100)", time(() -> stat.mostCommonWords(100).length) * 1e6, "us/op");
+        report("WindowedWordStat.wordRank", time(() -> stat.wordRank(keys[keys.length - 1])) * 1e6, "us/op");
+    }
+
+    /**
+     * Compares ApproximateWordStat against exact counts at several skews, reporting the error of
+     * word counts on frequent and on random words and the recall of the most common words, and
+     * checking that no more than delta of the words exceed the error bound
+     * @param tokens the number of words generated per skew
+     * @throws Exception if a benchmark fails or too many words exceed the error bound
+     */
+    private static void approximate(int tokens) throws Exception {
+        double epsilon = 0.0005;
+        double delta = 0.01;
+        /** "Aa" and "BB" have the same hash code, which must not put them in the same counter of every row */
+        CountMinSketch sketch = new CountMinSketch(epsilon, delta);
+        sketch.add("Aa", 1);
+        if (sketch.estimate("BB") != 0) {
+            throw new IllegalStateException("CountMinSketch rows depend on the hash code alone");
+        }
+        for (double skew : new double[] {0.8, 1.0, 1.2}) {
+            String[] lines = new ZipfCorpus(1_000_000, skew, SEED).lines(tokens);
+            String label = " s=" + skew;
+            WordStat exact = new WordStat(lines);
+            report("ApproximateWordStat.addText" + label, tokens / time(() -> {
+                ApproximateWordStat stat = new ApproximateWordStat(epsilon, delta, 1000);
+                stat.addText(lines);
+                return stat.tokens();
+            }), "ops/s");
+            ApproximateWordStat approximate = new ApproximateWordStat(epsilon, delta, 1000);
+            approximate.addText(lines);
+
+            String[] frequent = exact.mostCommonWords(Math.min(1000, exact.size()));
+            report("  mean error, frequent words" + label, meanError(exact, approximate, frequent), "words");
+            Random random = new Random(SEED);
+            String[] sampled = new String[1000];
+            for (int i = 0; i < sampled.length; i++) {
+                sampled[i] = exact.word(random.nextInt(exact.size()));
+            }
+            report("  mean error, random words" + label, meanError(exact, approximate, sampled), "words");
+            double bound = epsilon * tokens;
+            report("  error bound epsilon * tokens" + label, bound, "words");
+            long maxError = 0;
+            int above = 0;
+            for (int id = 0; id < exact.size(); id++) {
+                long error = approximate.wordCount(exact.word(id)) - exact.wordCount(id);
+                maxError = Math.max(maxError, error);
+                if (error > bound) {
+                    above++;
+                }
+            }
+            double fraction = (double) above / exact.size();
+            report("  max error, all words" + label, maxError, "words");
+            report("  words above the error bound" + label, 100.0 * fraction, "%");
+            if (fraction > delta) {
+                throw new IllegalStateException(above + " of " + exact.size() + " words exceed epsilon * tokens" + label);
+            }
+
+            int k = Math.min(100, exact.size());
+            HashSet<String> truth = new HashSet<String>(Arrays.asList(exact.mostCommonWords(k)));
+            int found = 0;
+            for (String word : approximate.mostCommonWords(k)) {
+                if (truth.contains(word)) {
+                    found++;
+                }
+            }
+            report("  mostCommonWords(" + k + ") recall" + label, 100.0 * found / k, "%");
+        }
+    }
+
+    /**
+     * Returns the mean amount the approximate counts of the words exceed their exact counts
+     * @param exact the exact statistics
+     * @param approximate the approximate statistics of the same text
+     * @param words the words to compare
+     * @return the mean overestimate
+     */
+    private static double meanError(WordStat exact, ApproximateWordStat approximate, String[] words) {
+        double error = 0;
+        for (String word : words) {
+            error += approximate.wordCount(word) - exact.wordCount(word);
+        }
+        return error / words.length;
+    }
+
+    /**
+     * Returns the number of heap bytes still in use while the result of a case is held
+     * @param benchmark the case whose result is measured
+     * @return the growth of the used heap after collecting garbage
+     * @throws Exception if the case fails
+     */
+    private static long retained(Callable<?> benchmark) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        Object result = benchmark.call();
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        sink += System.identityHashCode(result) & 1;
+        return after - before;
+    }
+
+    /**
+     * Runs a case untimed and then timed, and returns the mean time of the timed runs
+     * @param benchmark the case to time
+     * @return the mean number of seconds a run took
+     * @throws Exception if the case fails
+     */
+    private static double time(Case benchmark) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += benchmark.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += benchmark.run();
+        }
+        return (System.nanoTime() - start) / 1e9 / iterations;
+    }
+
+    /**
+     * Prints one result
+     * @param name the name of the case
+     * @param value the measured value
+     * @param unit the unit of the value
+     */
+    private static void report(String name, double value, String unit) {
+        System.out.printf("%-50s %14.2f %s%n", name, value, unit);
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+/**
+ * A class representing a Tokenizer that normalizes text arriving as chunks of bytes
+ * and hands every normalized word to a sink as soon as it ends
+ * @author Shravani Suram
+ */
+public class ChunkedTokenizer {
+    /** Default number of bytes read from a channel at a time */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /** stores the decoder turning bytes into characters */
+    private CharsetDecoder decoder;
+    /** stores bytes read from a channel and bytes of a character split between chunks */
+    private ByteBuffer bytes;
+    /** stores decoded characters before they are scanned */
+    private CharBuffer chars;
+    /** stores the word being read and receives every normalized word */
+    private TextNormalizer.Words words;
+
+    /**
+     * Creates a ChunkedTokenizer using the default chunk size
+     * @param charset the charset the bytes are encoded in
+     * @param consumer receives every normalized word in order
+     */
+    public ChunkedTokenizer(Charset charset, Consumer<String> consumer) {
+        this(charset, DEFAULT_CHUNK_SIZE, consumer);
+    }
+
+    /**
+     * Creates a ChunkedTokenizer
+     * @param charset the charset the bytes are encoded in
+     * @param chunkSize the number of bytes read from a channel at a time
+     * @param consumer receives every normalized word in order
+     * @throws IllegalArgumentException
+     *         if chunkSize is less than 16
+     */
+    public ChunkedTokenizer(Charset charset, int chunkSize, Consumer<String> consumer) {
+        this(charset, chunkSize, (buf, off, len) -> consumer.accept(new String(buf, off, len)));
+    }
+
+    /**
+     * Creates a ChunkedTokenizer using the default chunk size that hands words to the sink
+     * without creating a String for them
+     * @param charset the charset the bytes are encoded in
+     * @param sink receives every normalized word in order
+     */
+    public ChunkedTokenizer(Charset charset, TokenSink sink) {
+        this(charset, DEFAULT_CHUNK_SIZE, sink);
+    }
+
+    /**
+     * Creates a ChunkedTokenizer that hands words to the sink without creating a String for them
+     * @param charset the charset the bytes are encoded in
+     * @param chunkSize the number of bytes read from a channel at a time
+     * @param sink receives every normalized word in order
+     * @throws IllegalArgumentException
+     *         if chunkSize is less than 16
+     */
+    public ChunkedTokenizer(Charset charset, int chunkSize, TokenSink sink) {
+        this(charset, chunkSize, TextNormalizer.DEFAULT, sink);
+    }
+
+    /**
+     * Creates a ChunkedTokenizer that splits text into words as the normalizer decides and hands
+     * them to the sink without creating a String for them
+     * @param charset the charset the bytes are encoded in
+     * @param chunkSize the number of bytes read from a channel at a time
+     * @param normalizer decides which characters are kept, how they are folded and where words end
+     * @param sink receives every normalized word in order
+     * @throws IllegalArgumentException
+     *         if chunkSize is less than 16
+     */
+    public ChunkedTokenizer(Charset charset, int chunkSize, TextNormalizer normalizer, TokenSink sink) {
+        if (chunkSize < 16) {
+            throw new IllegalArgumentException();
+        }
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(chunkSize);
+        this.chars = CharBuffer.allocate((int) (chunkSize * (double) decoder.maxCharsPerByte()) + 16);
+        this.words = normalizer.words(sink);
+    }
+
+    /**
+     * Reads and normalizes every remaining byte of the channel
+     * @param channel the channel to read from
+     * @throws IOException if the channel cannot be read
+     */
+    public void read(ReadableByteChannel channel) throws IOException {
+        while (channel.read(bytes) >= 0) {
+            bytes.flip();
+            decode(bytes, false);
+            /** keeps the bytes of a character split by the end of the chunk */
+            bytes.compact();
+        }
+    }
+
+    /**
+     * Normalizes the bytes remaining in the buffer, which may end in the middle of a character
+     * @param src the bytes to normalize
+     */
+    public void feed(ByteBuffer src) {
+        /** completes a character split by the end of the previous chunk one byte at a time */
+        while (bytes.position() > 0 && src.hasRemaining()) {
+            bytes.put(src.get());
+            bytes.flip();
+            decode(bytes, false);
+            bytes.compact();
+        }
+        decode(src, false);
+        bytes.put(src);
+    }
+
+    /**
+     * Normalizes any bytes still held and hands the last word to the sink
+     */
+    public void finish() {
+        bytes.flip();
+        decode(bytes, true);
+        bytes.clear();
+        decoder.flush(chars);
+        chars.flip();
+        scan(chars);
+        chars.clear();
+        decoder.reset();
+        words.finish();
+    }
+
+    /**
+     * Decodes bytes into characters and scans them
+     * @param in the bytes to decode
+     * @param endOfInput whether no bytes follow in
+     */
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = decoder.decode(in, chars, endOfInput);
+            chars.flip();
+            scan(chars);
+            chars.clear();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Hands the characters to the normalizer, which adds them to the current word or ends it
+     * @param buffer the characters to scan
+     */
+    private void scan(CharBuffer buffer) {
+        words.feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.arrayOffset() + buffer.limit());
+        buffer.position(buffer.limit());
+    }
+}
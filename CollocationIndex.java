@@ -0,0 +1,194 @@
+import java.util.Arrays;
+
+/**
+ * A class that stores, for every word, the words seen directly before and after it
+ * most often, so collocation queries never scan the token stream
+ * @author Shravani Suram
+ */
+public class CollocationIndex {
+    /** Bytes stored for every kept neighbor: its id and its count */
+    private static final int BYTES_PER_NEIGHBOR = 8;
+
+    /** stores the number of neighbors kept for each side of a word */
+    private int limit;
+    /** stores where the neighbors following each word start, indexed by id, with one extra end entry */
+    private int[] afterStart;
+    /** stores the ids of the neighbors following each word, most frequent first */
+    private int[] afterIds;
+    /** stores how often each neighbor in afterIds follows the word */
+    private int[] afterCounts;
+    /** stores where the neighbors preceding each word start, indexed by id, with one extra end entry */
+    private int[] beforeStart;
+    /** stores the ids of the neighbors preceding each word, most frequent first */
+    private int[] beforeIds;
+    /** stores how often each neighbor in beforeIds precedes the word */
+    private int[] beforeCounts;
+
+    /**
+     * Creates a CollocationIndex by counting every pair of adjacent words
+     * @param order the ids of the words in order
+     * @param vocabulary the number of distinct word ids
+     * @param memoryBudget the number of bytes the finished index may use; the number of neighbors
+     *                     kept per word is the largest that fits, but at least 1
+     * @throws IllegalArgumentException
+     *         if memoryBudget is negative
+     */
+    public CollocationIndex(IntList order, int vocabulary, long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException();
+        }
+        /** counts every pair of adjacent ids, keyed by (first id, second id) */
+        LongCounterTable pairs = new LongCounterTable();
+        for (int i = 1; i < order.size(); i++) {
+            pairs.add(((long) order.get(i - 1) << 32) | order.get(i), 1);
+        }
+        int[] afterDegree = new int[vocabulary];
+        int[] beforeDegree = new int[vocabulary];
+        for (int p = 0; p < pairs.size(); p++) {
+            long key = pairs.keyAt(p);
+            afterDegree[(int) (key >>> 32)]++;
+            beforeDegree[(int) key]++;
+        }
+        limit = chooseLimit(afterDegree, beforeDegree, memoryBudget - 2L * (vocabulary + 1) * 4);
+
+        afterStart = new int[vocabulary + 1];
+        beforeStart = new int[vocabulary + 1];
+        long[] grouped = group(pairs, afterDegree, true);
+        afterIds = new int[kept(afterDegree, afterStart)];
+        afterCounts = new int[afterIds.length];
+        keep(grouped, afterDegree, afterStart, afterIds, afterCounts);
+        grouped = group(pairs, beforeDegree, false);
+        beforeIds = new int[kept(beforeDegree, beforeStart)];
+        beforeCounts = new int[beforeIds.length];
+        keep(grouped, beforeDegree, beforeStart, beforeIds, beforeCounts);
+    }
+
+    /**
+     * Returns the largest number of neighbors per side whose entries fit in the budget
+     * @param afterDegree the number of distinct neighbors following each word
+     * @param beforeDegree the number of distinct neighbors preceding each word
+     * @param budget the number of bytes left for neighbor entries
+     * @return the number of neighbors kept per side, at least 1
+     */
+    private static int chooseLimit(int[] afterDegree, int[] beforeDegree, long budget) {
+        int low = 1;
+        int high = 1;
+        for (int i = 0; i < afterDegree.length; i++) {
+            high = Math.max(high, Math.max(afterDegree[i], beforeDegree[i]));
+        }
+        /** binary search for the largest limit that fits */
+        while (low < high) {
+            int mid = (int) ((low + (long) high + 1) / 2);
+            long bytes = 0;
+            for (int i = 0; i < afterDegree.length; i++) {
+                bytes += Math.min(afterDegree[i], mid) + Math.min(beforeDegree[i], mid);
+            }
+            if (bytes * BYTES_PER_NEIGHBOR <= budget) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Groups the pairs by one of their words, each group sorted by count descending and then by neighbor id
+     * @param pairs the counted pairs
+     * @param degree the number of pairs in each group
+     * @param after whether to group by the first word and keep the following word as neighbor
+     * @return the sort key of every pair: the inverted count in the high bits and the neighbor id in the low bits
+     */
+    private static long[] group(LongCounterTable pairs, int[] degree, boolean after) {
+        int[] next = new int[degree.length];
+        for (int i = 1; i < degree.length; i++) {
+            next[i] = next[i - 1] + degree[i - 1];
+        }
+        long[] grouped = new long[pairs.size()];
+        for (int p = 0; p < pairs.size(); p++) {
+            long key = pairs.keyAt(p);
+            int word = after ? (int) (key >>> 32) : (int) key;
+            int neighbor = after ? (int) key : (int) (key >>> 32);
+            grouped[next[word]++] = ((long) (Integer.MAX_VALUE - pairs.valueAt(p)) << 32) | neighbor;
+        }
+        int start = 0;
+        for (int i = 0; i < degree.length; i++) {
+            Arrays.sort(grouped, start, start + degree[i]);
+            start += degree[i];
+        }
+        return grouped;
+    }
+
+    /**
+     * Fills in where each word's kept neighbors start
+     * @param degree the number of distinct neighbors of each word
+     * @param start receives the start of each word's neighbors
+     * @return the total number of kept neighbors
+     */
+    private int kept(int[] degree, int[] start) {
+        for (int i = 0; i < degree.length; i++) {
+            start[i + 1] = start[i] + Math.min(degree[i], limit);
+        }
+        return start[degree.length];
+    }
+
+    /**
+     * Copies the first limit neighbors of every group into the index
+     * @param grouped the sorted groups of pairs
+     * @param degree the number of pairs in each group
+     * @param start where each word's kept neighbors start
+     * @param ids receives the kept neighbor ids
+     * @param counts receives the kept neighbor counts
+     */
+    private static void keep(long[] grouped, int[] degree, int[] start, int[] ids, int[] counts) {
+        int from = 0;
+        for (int i = 0; i < degree.length; i++) {
+            for (int j = start[i]; j < start[i + 1]; j++) {
+                long entry = grouped[from + j - start[i]];
+                ids[j] = (int) entry;
+                counts[j] = Integer.MAX_VALUE - (int) (entry >>> 32);
+            }
+            from += degree[i];
+        }
+    }
+
+    /**
+     * Returns the number of neighbors kept for each side of a word
+     * @return the largest k a query can be fully answered for
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the ids of the words most often seen directly before or after a word
+     * @param id the id of the base word
+     * @param precede whether to return words before rather than after the base word
+     * @param k the largest number of ids to return
+     * @return up to k ids, most frequent neighbor first, ties by lowest id
+     */
+    public int[] neighbors(int id, boolean precede, int k) {
+        int[] start = precede ? beforeStart : afterStart;
+        int from = start[id];
+        int to = Math.min(start[id + 1], from + k);
+        return Arrays.copyOfRange(precede ? beforeIds : afterIds, from, to);
+    }
+
+    /**
+     * Returns how often the word is seen directly before or after the base word
+     * @param id the id of the base word
+     * @param precede whether the neighbor precedes rather than follows the base word
+     * @param neighbor the id of the neighbor
+     * @return the number of times the pair was seen, or 0 if it is not among the kept neighbors
+     */
+    public int count(int id, boolean precede, int neighbor) {
+        int[] start = precede ? beforeStart : afterStart;
+        int[] ids = precede ? beforeIds : afterIds;
+        for (int j = start[id]; j < start[id + 1]; j++) {
+            if (ids[j] == neighbor) {
+                return precede ? beforeCounts[j] : afterCounts[j];
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class to represent a counting HashTable that many threads can add to at once. Keys are
+ * split over stripes that are each a ConcurrentHashMap and every count is a LongAdder, so
+ * adding to a key already present takes no lock, and threads adding to the same hot key
+ * spread over the cells of its LongAdder instead of contending on one word
+ * @author Shravani Suram
+ */
+public class ConcurrentCounterTable {
+    /**
+     * Default number of independent stripes
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Stores the counters of the keys of each stripe
+     */
+    private ArrayList<ConcurrentHashMap<String, LongAdder>> stripes;
+
+    /**
+     * Creates the ConcurrentCounterTable object with the default number of stripes
+     */
+    public ConcurrentCounterTable() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates the ConcurrentCounterTable object with the given number of stripes
+     *
+     * @param stripes the number of independent stripes, rounded up to a power of two
+     * @throws throws IllegalArgumentException
+     *                if stripes is not positive
+     */
+    public ConcurrentCounterTable(int stripes) {
+        if (stripes <= 0 || stripes > 1 << 16) {
+            throw new IllegalArgumentException();
+        }
+        int length = Integer.highestOneBit(stripes);
+        if (length < stripes) {
+            length <<= 1;
+        }
+        this.stripes = new ArrayList<ConcurrentHashMap<String, LongAdder>>(length);
+        for (int i = 0; i < length; i++) {
+            this.stripes.add(new ConcurrentHashMap<String, LongAdder>(16));
+        }
+    }
+
+    /**
+     * Returns the stripe holding the key, using different hash bits than the buckets within a stripe
+     *
+     * @param key the key to place
+     * @return the index of the stripe
+     */
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16) ^ (hash >>> 24)) & (stripes.size() - 1);
+    }
+
+    /**
+     * Adds the value to the count of the key, inserting the key if it is not present
+     *
+     * @param key   the key that will be added
+     * @param value the amount added to the count of the key
+     */
+    public void put(String key, int value) {
+        ConcurrentHashMap<String, LongAdder> stripe = stripes.get(stripeOf(key));
+        LongAdder counter = stripe.get(key);
+        /** only a new key locks a bin of the map; get never does */
+        if (counter == null) {
+            counter = stripe.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(value);
+    }
+
+    /**
+     * Returns the count of the specified key, if present in the table. Adds made by other threads
+     * while this runs may or may not be included
+     *
+     * @param key the key that is to be found
+     * @return the count of the key found
+     * @throws throws NoSuchElementException
+     *                when key is not present in table
+     */
+    public long get(String key) {
+        LongAdder counter = stripes.get(stripeOf(key)).get(key);
+        if (counter == null) {
+            throw new NoSuchElementException();
+        }
+        return counter.sum();
+    }
+
+    /**
+     * Copies the keys and their current counts into an IntCounterTable. Each count is a value the
+     * key had while the copy was made; adds made by other threads during the copy may be missing
+     *
+     * @return a table holding a copy of every key and its count
+     * @throws throws ArithmeticException
+     *                if a count does not fit in an int
+     */
+    public IntCounterTable getTable() {
+        IntCounterTable copy = new IntCounterTable(size());
+        for (ConcurrentHashMap<String, LongAdder> stripe : stripes) {
+            /** the iterator is weakly consistent, so keys added during the copy may be missing */
+            for (Map.Entry<String, LongAdder> entry : stripe.entrySet()) {
+                copy.put(entry.getKey(), Math.toIntExact(entry.getValue().sum()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of elements in the table
+     *
+     * @return the number of elements in table
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, LongAdder> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * A class that finds the words occurring within a distance of every occurrence of a word, using
+ * a PositionalIndex to jump straight to those occurrences, and ranks them by how often they
+ * co-occur or by how much more often than chance they do
+ * @author Shravani Suram
+ */
+public class CooccurrenceIndex {
+    /**
+     * nested enum representing how neighbors are ranked
+     */
+    public enum Score {
+        /** the number of times the neighbor is within the window */
+        COUNT,
+        /** pointwise mutual information: log2 of the co-occurrences over those expected by chance */
+        PMI,
+        /** Dunning's log-likelihood ratio, negated for neighbors seen less often than by chance */
+        LOG_LIKELIHOOD
+    }
+
+    /** stores the ids of the words in order */
+    private int[] tokens;
+    /** stores the number of words in order */
+    private int size;
+    /** stores the positions of every word */
+    private PositionalIndex positions;
+
+    /**
+     * Creates a CooccurrenceIndex, building the positional index on every available processor
+     * @param order the ids of the words in order, which must not change while the index is used
+     * @param vocabulary the number of distinct word ids
+     */
+    public CooccurrenceIndex(IntList order, int vocabulary) {
+        this(order, vocabulary, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a CooccurrenceIndex
+     * @param order the ids of the words in order, which must not change while the index is used
+     * @param vocabulary the number of distinct word ids
+     * @param threads the number of threads building the positional index
+     * @throws IllegalArgumentException
+     *         if threads is not positive
+     */
+    public CooccurrenceIndex(IntList order, int vocabulary, int threads) {
+        this(order, new PositionalIndex(order, vocabulary, threads));
+    }
+
+    /**
+     * Creates a CooccurrenceIndex over a positional index that was already built
+     * @param order the ids of the words in order, which must not change while the index is used
+     * @param positions the positions of every word in order
+     */
+    public CooccurrenceIndex(IntList order, PositionalIndex positions) {
+        this.positions = positions;
+        this.tokens = order.array();
+        this.size = order.size();
+    }
+
+    /**
+     * Counts the words within the window of every occurrence of a word
+     * @param id the id of the word
+     * @param window the largest distance in words from an occurrence
+     * @param counts the co-occurrence count of every id, all 0, or null to use a hash table
+     * @return the counted neighbors, keyed by id, with counts in counts if it was given
+     */
+    private LongCounterTable count(int id, int window, int[] counts) {
+        LongCounterTable neighbors = new LongCounterTable();
+        PositionalIndex.Cursor cursor = positions.cursor(id);
+        while (cursor.hasNext()) {
+            int position = cursor.next();
+            int from = Math.max(0, position - window);
+            int to = Math.min(size - 1, position + window);
+            for (int i = from; i <= to; i++) {
+                if (i == position) {
+                    continue;
+                }
+                if (counts == null) {
+                    neighbors.add(tokens[i], 1);
+                } else if (counts[tokens[i]]++ == 0) {
+                    neighbors.add(tokens[i], 0);
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Returns the k best neighbors of a word within a window around each of its occurrences
+     * @param id the id of the word
+     * @param window the largest distance in words from an occurrence, at least 1
+     * @param score how neighbors are ranked
+     * @param k the number of neighbors to return
+     * @return the ids of at most k neighbors, best first, ties broken by lower id
+     * @throws IllegalArgumentException
+     *         if window is not positive or k is negative
+     * @throws IndexOutOfBoundsException
+     *         if no word has that id
+     */
+    public int[] neighbors(int id, int window, Score score, int k) {
+        if (window <= 0 || k < 0) {
+            throw new IllegalArgumentException();
+        }
+        int frequency = positions.frequency(id);
+        /** a dense array is cheaper than hashing once the windows cover much of the vocabulary */
+        int[] dense = (long) frequency * 2 * window > positions.vocabulary() / 8 ? new int[positions.vocabulary()] : null;
+        LongCounterTable neighbors = count(id, window, dense);
+        int found = neighbors.size();
+        int[] ids = new int[found];
+        double[] scores = new double[found];
+        for (int i = 0; i < found; i++) {
+            ids[i] = (int) neighbors.keyAt(i);
+            int together = dense == null ? neighbors.valueAt(i) : dense[ids[i]];
+            scores[i] = score(score, together, frequency, positions.frequency(ids[i]), window);
+        }
+        return best(ids, scores, Math.min(k, found));
+    }
+
+    /**
+     * Returns the number of times a neighbor occurs within the window of a word
+     * @param id the id of the word
+     * @param neighbor the id of the neighbor
+     * @param window the largest distance in words from an occurrence
+     * @return the co-occurrence count
+     * @throws IllegalArgumentException
+     *         if window is not positive
+     */
+    public int count(int id, int neighbor, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException();
+        }
+        LongCounterTable neighbors = count(id, window, null);
+        int index = neighbors.idOf(neighbor);
+        return index < 0 ? 0 : neighbors.valueAt(index);
+    }
+
+    /**
+     * Scores one neighbor
+     * @param score how neighbors are ranked
+     * @param together the number of times the neighbor is within the window of the word
+     * @param word the frequency of the word
+     * @param neighbor the frequency of the neighbor
+     * @param window the largest distance from an occurrence
+     * @return the score of the neighbor, higher being better
+     */
+    private double score(Score score, long together, long word, long neighbor, int window) {
+        long span = 2L * window;
+        switch (score) {
+            case PMI:
+                return Math.log((double) together * size / ((double) word * neighbor * span)) / Math.log(2);
+            case LOG_LIKELIHOOD:
+                /** contingency table of window slots: around the word or not, holding the neighbor or not */
+                double k11 = together;
+                double k12 = Math.max(0, word * span - k11);
+                double k21 = Math.max(0, neighbor * span - k11);
+                double k22 = Math.max(0, (double) size * span - k11 - k12 - k21);
+                double total = k11 + k12 + k21 + k22;
+                double g2 = 2 * (xlogx(k11) + xlogx(k12) + xlogx(k21) + xlogx(k22)
+                        - xlogx(k11 + k12) - xlogx(k21 + k22) - xlogx(k11 + k21) - xlogx(k12 + k22)
+                        + xlogx(total));
+                return k11 * total < (k11 + k12) * (k11 + k21) ? -g2 : g2;
+            default:
+                return together;
+        }
+    }
+
+    /**
+     * Returns x ln x, taking 0 ln 0 as 0
+     * @param x the value
+     * @return x times its natural log
+     */
+    private static double xlogx(double x) {
+        return x <= 0 ? 0 : x * Math.log(x);
+    }
+
+    /**
+     * Selects the k ids with the highest scores with a heap whose root is the worst id kept
+     * @param ids the candidate ids
+     * @param scores the score of each candidate
+     * @param k the number of ids to return
+     * @return the selected ids, best first
+     */
+    private static int[] best(int[] ids, double[] scores, int k) {
+        int[] heap = new int[k];
+        int length = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (length < k) {
+                heap[length] = i;
+                int index = length++;
+                /** moves the new candidate up while it is worse than its parent */
+                while (index > 0 && better(ids, scores, heap[(index - 1) / 2], heap[index])) {
+                    swap(heap, index, (index - 1) / 2);
+                    index = (index - 1) / 2;
+                }
+            } else if (k > 0 && better(ids, scores, i, heap[0])) {
+                heap[0] = i;
+                down(heap, length, ids, scores);
+            }
+        }
+        /** takes the worst off the heap until it is empty, filling the result from the back */
+        int[] result = new int[k];
+        for (int n = k - 1; n >= 0; n--) {
+            result[n] = ids[heap[0]];
+            heap[0] = heap[--length];
+            down(heap, length, ids, scores);
+        }
+        return result;
+    }
+
+    /**
+     * Moves the root of the heap down while a child is worse
+     * @param heap the heap of candidate indexes, worst at the root
+     * @param length the number of entries in the heap
+     * @param ids the candidate ids
+     * @param scores the score of each candidate
+     */
+    private static void down(int[] heap, int length, int[] ids, double[] scores) {
+        int index = 0;
+        while (2 * index + 1 < length) {
+            int child = 2 * index + 1;
+            if (child + 1 < length && better(ids, scores, heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!better(ids, scores, heap[index], heap[child])) {
+                break;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    /**
+     * Returns whether one candidate ranks above another
+     * @param ids the candidate ids
+     * @param scores the score of each candidate
+     * @param a the index of one candidate
+     * @param b the index of the other candidate
+     * @return true if a has the higher score, or the same score and the lower id
+     */
+    private static boolean better(int[] ids, double[] scores, int a, int b) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : ids[a] < ids[b];
+    }
+
+    /**
+     * Swaps two entries of the heap
+     * @param heap the heap
+     * @param i the index of one entry
+     * @param j the index of the other entry
+     */
+    private static void swap(int[] heap, int i, int j) {
+        int entry = heap[i];
+        heap[i] = heap[j];
+        heap[j] = entry;
+    }
+}
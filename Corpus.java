@@ -0,0 +1,247 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * A class that builds one WordStat from every file of a directory, tokenizing the files
+ * concurrently, and keeps the frequencies of every word in every file so document frequency
+ * and TF-IDF can be asked for without reading the files again
+ * @author Shravani Suram
+ */
+public class Corpus {
+    /**
+     * nested class representing the words of one file, counted on a worker thread
+     */
+    private static class Document {
+        /** stores the ids of the file's words in order, local to the file's table */
+        private IntList order = new IntList();
+        /** stores the file's words and their frequencies */
+        private IntCounterTable table = new IntCounterTable();
+    }
+
+    /** stores the statistics of all files together */
+    private WordStat stats;
+    /** stores the files in the order they were added */
+    private ArrayList<Path> files = new ArrayList<Path>();
+    /** stores the ids of the words of each file, ascending */
+    private ArrayList<int[]> termIds = new ArrayList<int[]>();
+    /** stores the frequencies of the words of each file, matching termIds */
+    private ArrayList<int[]> termCounts = new ArrayList<int[]>();
+    /** stores the number of files each word appears in, indexed by word id */
+    private int[] documentFrequency = new int[16];
+
+    /**
+     * Creates an empty Corpus; use build to fill one
+     */
+    private Corpus() {
+    }
+
+    /**
+     * Builds a Corpus from every regular file under a directory
+     * @param directory the directory to read
+     * @param threads the number of files tokenized at once
+     * @return the corpus of the files
+     * @throws IOException if the directory or a file cannot be read
+     */
+    public static Corpus build(Path directory, int threads) throws IOException {
+        return build(directory, "**", Charset.defaultCharset(), threads);
+    }
+
+    /**
+     * Builds a Corpus from the files under a directory whose relative path matches a glob
+     * @param directory the directory to read
+     * @param glob the pattern relative paths must match, such as "*.txt"
+     * @param charset the charset the files are encoded in
+     * @param threads the number of files tokenized at once
+     * @return the corpus of the matching files, which are added in path order
+     * @throws IOException if the directory or a file cannot be read
+     * @throws IllegalArgumentException
+     *         if threads is not positive
+     */
+    public static Corpus build(Path directory, String glob, Charset charset, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        ArrayList<Path> paths = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.filter(Files::isRegularFile)
+                .filter(path -> matcher.matches(directory.relativize(path)))
+                .forEach(paths::add);
+        }
+        Collections.sort(paths);
+
+        Corpus corpus = new Corpus();
+        IntList order = new IntList();
+        IntCounterTable table = new IntCounterTable(100);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        /** files being tokenized; never more than twice the threads, so finished files cannot pile up */
+        ArrayDeque<Future<Document>> pending = new ArrayDeque<Future<Document>>();
+        try {
+            for (Path path : paths) {
+                if (pending.size() >= 2 * threads) {
+                    corpus.merge(join(pending.poll()), order, table);
+                }
+                pending.add(pool.submit(() -> tokenize(path, charset)));
+            }
+            while (!pending.isEmpty()) {
+                corpus.merge(join(pending.poll()), order, table);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        corpus.files = paths;
+        corpus.stats = new WordStat(order, table);
+        return corpus;
+    }
+
+    /**
+     * Counts the words of one file
+     * @param path the file to read
+     * @param charset the charset of the file
+     * @return the counted words of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static Document tokenize(Path path, Charset charset) throws IOException {
+        Document document = new Document();
+        Tokenizer.stream(path.toString(), charset,
+                (buf, off, len) -> document.order.add(document.table.add(buf, off, len, 1)));
+        return document;
+    }
+
+    /**
+     * Waits for a file to be tokenized, rethrowing the IOException it failed with
+     * @param future the tokenizing file
+     * @return the counted words of the file
+     * @throws IOException if the file could not be read
+     */
+    private static Document join(Future<Document> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Adds a counted file to the totals, the token order and the per-file frequencies
+     * @param document the counted words of the file
+     * @param order the ids of all words in order
+     * @param table all words and their frequencies
+     */
+    private void merge(Document document, IntList order, IntCounterTable table) {
+        int size = document.table.size();
+        /** maps the file's ids to ids of the merged table, packed with the count to sort by id */
+        long[] terms = new long[size];
+        int[] ids = new int[size];
+        for (int id = 0; id < size; id++) {
+            ids[id] = table.add(document.table, id);
+            terms[id] = ((long) ids[id] << 32) | document.table.valueAt(id);
+        }
+        for (int i = 0; i < document.order.size(); i++) {
+            order.add(ids[document.order.get(i)]);
+        }
+        Arrays.sort(terms);
+        int[] termId = new int[size];
+        int[] termCount = new int[size];
+        if (documentFrequency.length < table.size()) {
+            documentFrequency = Arrays.copyOf(documentFrequency, Math.max(table.size(), documentFrequency.length * 2));
+        }
+        for (int i = 0; i < size; i++) {
+            termId[i] = (int) (terms[i] >>> 32);
+            termCount[i] = (int) terms[i];
+            documentFrequency[termId[i]]++;
+        }
+        termIds.add(termId);
+        termCounts.add(termCount);
+    }
+
+    /**
+     * Returns the statistics of all files together, as if they were one text in path order
+     * @return the statistics of the corpus
+     */
+    public WordStat stats() {
+        return stats;
+    }
+
+    /**
+     * Returns the number of files in the corpus
+     * @return the number of files
+     */
+    public int documents() {
+        return files.size();
+    }
+
+    /**
+     * Returns the file at the specified index
+     * @param document the index of the file, in path order
+     * @return the path of the file
+     */
+    public Path document(int document) {
+        return files.get(document);
+    }
+
+    /**
+     * Returns the number of files a word appears in
+     * @param word the normalized word
+     * @return the number of files containing the word
+     */
+    public int documentFrequency(String word) {
+        int id = stats.wordId(word);
+        return id < 0 ? 0 : documentFrequency[id];
+    }
+
+    /**
+     * Returns the number of times a word appears in one file
+     * @param word the normalized word
+     * @param document the index of the file
+     * @return the frequency of the word in the file
+     * @throws IndexOutOfBoundsException
+     *         if there is no file at that index
+     */
+    public int termFrequency(String word, int document) {
+        int[] ids = termIds.get(document);
+        int id = stats.wordId(word);
+        int index = id < 0 ? -1 : Arrays.binarySearch(ids, id);
+        return index < 0 ? 0 : termCounts.get(document)[index];
+    }
+
+    /**
+     * Returns the TF-IDF weight of a word in one file: its frequency in the file times the
+     * log of the number of files over the number of files containing it
+     * @param word the normalized word
+     * @param document the index of the file
+     * @return the TF-IDF weight, or 0 if the word is not in the file
+     * @throws IndexOutOfBoundsException
+     *         if there is no file at that index
+     */
+    public double tfIdf(String word, int document) {
+        int tf = termFrequency(word, document);
+        if (tf == 0) {
+            return 0;
+        }
+        return tf * Math.log((double) files.size() / documentFrequency(word));
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * A class that estimates the counts of String keys in a fixed amount of memory. Every key adds
+ * to one counter in each of several rows; a key's estimate is its smallest counter, which is
+ * never below its true count and, with the configured confidence, exceeds it by at most the
+ * configured fraction of all counts added
+ * @author Shravani Suram
+ */
+public class CountMinSketch {
+    /** stores the counters, one row after another */
+    private long[] counters;
+    /** stores the number of counters in each row */
+    private int width;
+    /** stores the number of rows */
+    private int depth;
+    /** stores the seed of the hash function of every row */
+    private long[] seeds;
+    /** stores the sum of all counts added */
+    private long total = 0;
+
+    /**
+     * Creates a CountMinSketch sized for the specified error and confidence
+     * @param epsilon the largest overestimate as a fraction of all counts added
+     * @param delta the probability of an estimate exceeding that error
+     * @throws IllegalArgumentException
+     *         if epsilon or delta is not between 0 and 1, or the sketch would be too large
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        this(width(epsilon), depth(delta));
+    }
+
+    /**
+     * Creates a CountMinSketch with the specified number of counters
+     * @param width the number of counters in each row
+     * @param depth the number of rows
+     * @throws IllegalArgumentException
+     *         if width or depth is not positive, or the sketch would be too large
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0 || (long) width * depth > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException();
+        }
+        this.width = width;
+        this.depth = depth;
+        counters = new long[width * depth];
+        seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = mix(0x9E3779B97F4A7C15L * (row + 1));
+        }
+    }
+
+    /**
+     * Returns the row width bounding the overestimate by epsilon of all counts
+     * @param epsilon the error as a fraction of all counts added
+     * @return the number of counters in each row
+     */
+    private static int width(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException();
+        }
+        double width = Math.ceil(Math.E / epsilon);
+        if (width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+        return (int) width;
+    }
+
+    /**
+     * Returns the number of rows making an estimate exceed the error with probability delta
+     * @param delta the probability of a larger error
+     * @return the number of rows
+     */
+    private static int depth(double delta) {
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException();
+        }
+        return (int) Math.ceil(Math.log(1 / delta));
+    }
+
+    /**
+     * Returns the counter of the key in the specified row. Every row hashes the characters of the
+     * key with its own seed, so keys colliding in one row are no more likely to collide in another
+     * @param key the key
+     * @param row the row of the counter
+     * @return the index of the counter
+     */
+    private int indexOf(String key, int row) {
+        long hash = seeds[row];
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 32;
+        }
+        return row * width + (int) Long.remainderUnsigned(mix(hash ^ key.length()), width);
+    }
+
+    /**
+     * Spreads every bit of a 64 bit hash over all of its bits
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Adds a count to the key
+     * @param key the key that will be added
+     * @param count the amount added, which must not be negative
+     * @throws IllegalArgumentException
+     *         if count is negative
+     */
+    public void add(String key, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException();
+        }
+        for (int row = 0; row < depth; row++) {
+            counters[indexOf(key, row)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Returns the estimated count of the key, which is never less than its true count
+     * @param key the key that is to be found
+     * @return the estimated count, 0 only if the key was never added
+     */
+    public long estimate(String key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[indexOf(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the sum of all counts added
+     * @return the total count
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Returns the number of counters in each row
+     * @return the width of the sketch
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return the depth of the sketch
+     */
+    public int depth() {
+        return depth;
+    }
+}
@@ -0,0 +1,329 @@
+import java.util.Arrays;
+
+/**
+ * A class that stores how many words have each distinct frequency, and for every frequency
+ * how many words have a higher one, so ranks can be looked up and kept up to date as counts change
+ * @author Shravani Suram
+ */
+public class FrequencyHistogram {
+    /** stores the distinct frequencies in ascending order */
+    private int[] frequencies;
+    /** stores the number of words with each frequency */
+    private int[] words;
+    /** stores the number of words with a frequency higher than each frequency */
+    private int[] above;
+    /** stores the number of distinct frequencies */
+    private int length = 0;
+
+    /**
+     * Creates a FrequencyHistogram of the specified counts
+     * @param counts the frequency of every word
+     * @param size the number of words in counts
+     */
+    public FrequencyHistogram(int[] counts, int size) {
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, counts[i]);
+            max = Math.max(max, counts[i]);
+        }
+        /** frequencies are bounded by the number of tokens, so they are usually counted rather than sorted */
+        if (min >= 0 && max <= 4L * size + 1024) {
+            int[] tally = new int[max + 1];
+            for (int i = 0; i < size; i++) {
+                tally[counts[i]]++;
+            }
+            int distinct = 0;
+            for (int f = 0; f <= max; f++) {
+                if (tally[f] != 0) {
+                    distinct++;
+                }
+            }
+            allocate(distinct);
+            for (int f = 0; f <= max; f++) {
+                if (tally[f] != 0) {
+                    frequencies[length] = f;
+                    words[length++] = tally[f];
+                }
+            }
+        } else {
+            int[] sorted = Arrays.copyOf(counts, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || sorted[i - 1] != sorted[i]) {
+                    distinct++;
+                }
+            }
+            allocate(distinct);
+            /** run-length encodes the sorted frequencies */
+            for (int i = 0; i < size; i++) {
+                if (length == 0 || frequencies[length - 1] != sorted[i]) {
+                    frequencies[length++] = sorted[i];
+                }
+                words[length - 1]++;
+            }
+        }
+        for (int i = length - 2; i >= 0; i--) {
+            above[i] = above[i + 1] + words[i + 1];
+        }
+    }
+
+    /**
+     * Creates a FrequencyHistogram holding the sum of other histograms, such as those of words
+     * counted apart on different shards, merging their distinct frequencies in one pass
+     * @param parts the histograms to add up
+     */
+    public FrequencyHistogram(FrequencyHistogram... parts) {
+        int total = 0;
+        for (FrequencyHistogram part : parts) {
+            total += part.length;
+        }
+        allocate(total);
+        int[] next = new int[parts.length];
+        while (true) {
+            /** takes the lowest frequency not yet merged from any part */
+            int lowest = Integer.MAX_VALUE;
+            boolean found = false;
+            for (int p = 0; p < parts.length; p++) {
+                if (next[p] < parts[p].length && parts[p].frequencies[next[p]] <= lowest) {
+                    lowest = parts[p].frequencies[next[p]];
+                    found = true;
+                }
+            }
+            if (found == false) {
+                break;
+            }
+            frequencies[length] = lowest;
+            for (int p = 0; p < parts.length; p++) {
+                if (next[p] < parts[p].length && parts[p].frequencies[next[p]] == lowest) {
+                    words[length] += parts[p].words[next[p]++];
+                }
+            }
+            length++;
+        }
+        for (int i = length - 2; i >= 0; i--) {
+            above[i] = above[i + 1] + words[i + 1];
+        }
+    }
+
+    /**
+     * Creates a FrequencyHistogram from its distinct frequencies
+     * @param frequencies the distinct frequencies in ascending order
+     * @param words the number of words with each frequency
+     * @param length the number of distinct frequencies
+     * @throws IllegalArgumentException
+     *         if the frequencies are not ascending or a frequency has no words
+     */
+    FrequencyHistogram(int[] frequencies, int[] words, int length) {
+        allocate(length);
+        for (int i = 0; i < length; i++) {
+            if ((i > 0 && frequencies[i] <= frequencies[i - 1]) || words[i] <= 0) {
+                throw new IllegalArgumentException();
+            }
+            this.frequencies[i] = frequencies[i];
+            this.words[i] = words[i];
+        }
+        this.length = length;
+        for (int i = length - 2; i >= 0; i--) {
+            above[i] = above[i + 1] + this.words[i + 1];
+        }
+    }
+
+    /**
+     * Creates the arrays with room for the specified number of distinct frequencies
+     * @param distinct the number of distinct frequencies
+     */
+    private void allocate(int distinct) {
+        frequencies = new int[Math.max(distinct, 4)];
+        words = new int[frequencies.length];
+        above = new int[frequencies.length];
+    }
+
+    /**
+     * Returns the index of the frequency, or where it would be inserted encoded as -(index + 1)
+     * @param frequency the frequency to find
+     * @return the index of the frequency
+     */
+    private int indexOf(int frequency) {
+        return Arrays.binarySearch(frequencies, 0, length, frequency);
+    }
+
+    /**
+     * Returns the rank of a word with the specified frequency
+     * @param frequency the frequency of the word
+     * @return one more than the number of words with a higher frequency
+     */
+    public int rank(int frequency) {
+        int index = indexOf(frequency);
+        if (index >= 0) {
+            return above[index] + 1;
+        }
+        /** no word has exactly this frequency, so count the words at the next frequency up as well */
+        index = -index - 1;
+        return index < length ? above[index] + words[index] + 1 : 1;
+    }
+
+    /**
+     * Returns the number of words with exactly the specified frequency
+     * @param frequency the frequency
+     * @return the number of words with that frequency, 0 if there are none
+     */
+    public int words(int frequency) {
+        int index = indexOf(frequency);
+        return index >= 0 ? words[index] : 0;
+    }
+
+    /**
+     * Returns the frequency of the word at a position in the order from most to least frequent,
+     * found by binary search over the distinct frequencies
+     * @param position the position, 1 being the most frequent word
+     * @return the frequency of the word at that position
+     * @throws IndexOutOfBoundsException
+     *         if position is not between 1 and the number of words
+     */
+    public int frequencyOf(int position) {
+        if (position < 1 || position > total()) {
+            throw new IndexOutOfBoundsException();
+        }
+        /** above falls as frequencies rise, so the lowest frequency with fewer than position words above it holds the word */
+        int low = 0;
+        int high = length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (above[mid] < position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return frequencies[low];
+    }
+
+    /**
+     * Returns the number of words in the histogram
+     * @return the number of words of every frequency
+     */
+    public int total() {
+        return length == 0 ? 0 : above[0] + words[0];
+    }
+
+    /**
+     * Records that a word's frequency grew, which only changes the ranks of frequencies it passed
+     * @param from the old frequency of the word, or 0 if the word is new
+     * @param to the new frequency of the word
+     * @throws IllegalArgumentException
+     *         if to is not larger than from
+     */
+    public void increase(int from, int to) {
+        if (to <= from) {
+            throw new IllegalArgumentException();
+        }
+        int target = insert(to);
+        words[target]++;
+        int start;
+        if (from > 0) {
+            start = indexOf(from);
+            words[start]--;
+        } else {
+            start = 0;
+        }
+        /** the word is now above every frequency from its old one up to its new one */
+        for (int i = start; i < target; i++) {
+            above[i]++;
+        }
+        if (from > 0 && words[start] == 0) {
+            remove(start);
+        }
+    }
+
+    /**
+     * Records that a word's frequency shrank, which only changes the ranks of frequencies it fell past
+     * @param from the old frequency of the word
+     * @param to the new frequency of the word, or 0 if the word is gone
+     * @throws IllegalArgumentException
+     *         if to is negative or not smaller than from
+     */
+    public void decrease(int from, int to) {
+        if (to < 0 || to >= from) {
+            throw new IllegalArgumentException();
+        }
+        int target = 0;
+        if (to > 0) {
+            target = insert(to);
+            words[target]++;
+        }
+        int start = indexOf(from);
+        words[start]--;
+        /** the word is no longer above any frequency from its new one up to its old one */
+        for (int i = target; i < start; i++) {
+            above[i]--;
+        }
+        if (words[start] == 0) {
+            remove(start);
+        }
+    }
+
+    /**
+     * Returns the index of the frequency, adding it with no words if it is not present
+     * @param frequency the frequency to find
+     * @return the index of the frequency
+     */
+    private int insert(int frequency) {
+        int index = indexOf(frequency);
+        if (index >= 0) {
+            return index;
+        }
+        index = -index - 1;
+        if (length == frequencies.length) {
+            frequencies = Arrays.copyOf(frequencies, length * 2);
+            words = Arrays.copyOf(words, length * 2);
+            above = Arrays.copyOf(above, length * 2);
+        }
+        System.arraycopy(frequencies, index, frequencies, index + 1, length - index);
+        System.arraycopy(words, index, words, index + 1, length - index);
+        System.arraycopy(above, index, above, index + 1, length - index);
+        frequencies[index] = frequency;
+        words[index] = 0;
+        above[index] = index < length ? above[index + 1] + words[index + 1] : 0;
+        length++;
+        return index;
+    }
+
+    /**
+     * Removes a frequency that no word has any more
+     * @param index the index of the frequency
+     */
+    private void remove(int index) {
+        System.arraycopy(frequencies, index + 1, frequencies, index, length - index - 1);
+        System.arraycopy(words, index + 1, words, index, length - index - 1);
+        System.arraycopy(above, index + 1, above, index, length - index - 1);
+        length--;
+    }
+
+    /**
+     * Returns one of the distinct frequencies
+     * @param index the index of the frequency, 0 being the lowest
+     * @return the frequency
+     */
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Returns the number of words with one of the distinct frequencies
+     * @param index the index of the frequency, 0 being the lowest
+     * @return the number of words with that frequency
+     */
+    int wordsAt(int index) {
+        return words[index];
+    }
+
+    /**
+     * Returns the number of distinct frequencies
+     * @return the number of distinct frequencies
+     */
+    public int size() {
+        return length;
+    }
+}
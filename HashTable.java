@@ -68,13 +68,14 @@ public class HashTable<T> {
         }
 
         /**
-         * Compares the nodes by their keys
+         * Compares the nodes by their Integer values
          *
-         * @return returns the subtraction of the keys
+         * @param node the node to compare with
+         * @return negative, zero or positive as this value is less than, equal to or greater than the other
          */
         @Override
-        public int compareTo(HashNode node) {
-            return (Integer) this.value - (Integer) node.value;
+        public int compareTo(HashNode<T> node) {
+            return Integer.compare((Integer) this.value, (Integer) node.value);
         }
     }
 
@@ -92,17 +93,46 @@ public class HashTable<T> {
      */
     private ArrayList<HashNode<T>> table;
 
+    /**
+     * Stores the ratio of keys to buckets at which the table grows
+     */
+    private float loadFactor = DEFAULT_LOAD_FACTOR;
+
+    /**
+     * Stores the buckets being migrated into table while a resize is in progress, null otherwise
+     */
+    private ArrayList<HashNode<T>> oldTable;
+
+    /**
+     * Stores the capacity of oldTable
+     */
+    private int oldCapacity = 0;
+
+    /**
+     * Stores the next bucket of oldTable that is to be rehashed into table
+     */
+    private int rehashIndex = 0;
+
+    /**
+     * Stores the number of times the table started to grow
+     */
+    private int resizeCount = 0;
+
+    /**
+     * Default ratio of keys to buckets at which the table grows
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Number of old buckets moved into the new table on every operation while resizing
+     */
+    private static final int REHASH_STEP = 4;
+
     /**
      * Creates the HashTable object and initializes capacity to 10
      */
     public HashTable() {
-        table = new ArrayList<HashNode<T>>(10);
-        capacity = 10;
-        HashNode<T> node = new HashNode<T>(null, null);
-        /** Adds null nodes to each bucket */
-        for (int i = 0; i < capacity; i++) {
-            table.add(i, node);
-        }
+        this(10);
     }
 
     /**
@@ -113,18 +143,53 @@ public class HashTable<T> {
      *                if capacity is negative
      */
     public HashTable(int capacity) {
-        if (capacity > 0) {
-            table = new ArrayList<HashNode<T>>(capacity);
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates the HashTable object with given capacity and load factor
+     *
+     * @param capacity   the initial number of buckets in the table
+     * @param loadFactor the ratio of keys to buckets at which the table doubles its capacity
+     * @throws throws IllegalArgumentException
+     *                if capacity or loadFactor is not positive
+     */
+    public HashTable(int capacity, float loadFactor) {
+        if (capacity > 0 && loadFactor > 0) {
             this.capacity = capacity;
-            HashNode<T> node = new HashNode<T>(null, null);
-            /** Adds empty nodes to all of the buckets */
-            for (int i = 0; i < capacity; i++) {
-                table.add(i, node);
-            }
+            this.loadFactor = loadFactor;
+            table = buckets(capacity);
         } else
             throw new IllegalArgumentException();
     }
 
+    /**
+     * Creates a list of buckets that all hold the empty node
+     *
+     * @param capacity the number of buckets
+     * @return the list of empty buckets
+     */
+    private ArrayList<HashNode<T>> buckets(int capacity) {
+        ArrayList<HashNode<T>> list = new ArrayList<HashNode<T>>(capacity);
+        HashNode<T> node = new HashNode<T>(null, null);
+        /** Adds empty nodes to all of the buckets */
+        for (int i = 0; i < capacity; i++) {
+            list.add(i, node);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the bucket the key belongs to in a table of the given capacity
+     *
+     * @param key      the key to be placed
+     * @param capacity the number of buckets
+     * @return the index of the bucket
+     */
+    private static int indexFor(String key, int capacity) {
+        return (key.hashCode() & 0x7fffffff) % capacity;
+    }
+
     /**
      * Returns the size of the table
      *
@@ -134,15 +199,110 @@ public class HashTable<T> {
         return size;
     }
 
+    /**
+     * Returns the number of buckets in the table
+     *
+     * @return the number of buckets
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the ratio of keys to buckets at which the table grows
+     *
+     * @return the load factor of the table
+     */
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * Returns the number of times the table grew
+     *
+     * @return the resize count
+     */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the length of the longest bucket, computed by scanning every bucket
+     *
+     * @return the longest chain, or 0 if the table is empty
+     */
+    public int getMaxChainLength() {
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            max = Math.max(max, chainLength(table.get(i)));
+        }
+        if (oldTable != null) {
+            for (int i = 0; i < oldCapacity; i++) {
+                max = Math.max(max, chainLength(oldTable.get(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the mean number of nodes visited to find a key, computed by scanning every bucket
+     *
+     * @return the mean chain position of a key, or 0 if the table is empty
+     */
+    public double getMeanChainLength() {
+        long total = 0;
+        for (int i = 0; i < capacity; i++) {
+            int length = chainLength(table.get(i));
+            total += (long) length * (length + 1) / 2;
+        }
+        if (oldTable != null) {
+            for (int i = 0; i < oldCapacity; i++) {
+                int length = chainLength(oldTable.get(i));
+                total += (long) length * (length + 1) / 2;
+            }
+        }
+        return size == 0 ? 0 : (double) total / size;
+    }
+
+    /**
+     * Returns the number of nodes in a bucket
+     *
+     * @param node the first node of the bucket
+     * @return the number of keys in the bucket
+     */
+    private int chainLength(HashNode<T> node) {
+        int length = 0;
+        for (; node != null && node.key != null; node = node.next) {
+            length++;
+        }
+        return length;
+    }
+
     /**
      * Copies HashTable into an ArrayList
      */
     public ArrayList<HashNode<T>> getTable() {
         ArrayList<HashNode<T>> array = new ArrayList<HashNode<T>>(this.size);
+        copyInto(table, capacity, array);
+        /** keys that have not been rehashed yet are still in the old buckets */
+        if (oldTable != null) {
+            copyInto(oldTable, oldCapacity, array);
+        }
+        return array;
+    }
+
+    /**
+     * Copies every node of the given buckets into the array
+     *
+     * @param buckets  the buckets to copy
+     * @param capacity the number of buckets
+     * @param array    the list the copies are added to
+     */
+    private void copyInto(ArrayList<HashNode<T>> buckets, int capacity, ArrayList<HashNode<T>> array) {
         HashNode<T> node, node1;
         /** Traverses through each bucket of hashtable */
         for (int i = 0; i < capacity; i++) {
-            node = table.get(i);
+            node = buckets.get(i);
             /** Traverses through linked list within each bucket */
             while (node != null) {
                 if (node.key != null) {
@@ -152,7 +312,101 @@ public class HashTable<T> {
                 node = node.getNext();
             }
         }
-        return array;
+    }
+
+    /**
+     * Copies the keys into an array without creating a node for each, in the same order as
+     * getTable and getCounts as long as the table is not modified in between
+     *
+     * @return the keys of the table
+     */
+    public String[] getKeys() {
+        String[] keys = new String[size];
+        int index = keysInto(table, capacity, keys, 0);
+        if (oldTable != null) {
+            keysInto(oldTable, oldCapacity, keys, index);
+        }
+        return keys;
+    }
+
+    /**
+     * Copies the Integer values into an array without boxing or creating a node for each, in the
+     * same order as getKeys as long as the table is not modified in between
+     *
+     * @return the values of the table
+     * @throws throws ClassCastException
+     *                if the values are not Integers
+     */
+    public int[] getCounts() {
+        int[] counts = new int[size];
+        int index = countsInto(table, capacity, counts, 0);
+        if (oldTable != null) {
+            countsInto(oldTable, oldCapacity, counts, index);
+        }
+        return counts;
+    }
+
+    /**
+     * Copies the key of every node of the given buckets into the array
+     *
+     * @param buckets  the buckets to copy
+     * @param capacity the number of buckets
+     * @param keys     the array the keys are copied to
+     * @param index    the index of the first key copied
+     * @return the index after the last key copied
+     */
+    private int keysInto(ArrayList<HashNode<T>> buckets, int capacity, String[] keys, int index) {
+        for (int i = 0; i < capacity; i++) {
+            for (HashNode<T> node = buckets.get(i); node != null && node.key != null; node = node.next) {
+                keys[index++] = node.key;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Copies the Integer value of every node of the given buckets into the array
+     *
+     * @param buckets  the buckets to copy
+     * @param capacity the number of buckets
+     * @param counts   the array the values are copied to
+     * @param index    the index of the first value copied
+     * @return the index after the last value copied
+     */
+    private int countsInto(ArrayList<HashNode<T>> buckets, int capacity, int[] counts, int index) {
+        for (int i = 0; i < capacity; i++) {
+            for (HashNode<T> node = buckets.get(i); node != null && node.key != null; node = node.next) {
+                counts[index++] = (Integer) node.value;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the node holding the key, searching the old buckets too while resizing
+     *
+     * @param key the key that is to be found
+     * @return the node of the key or null if not present
+     */
+    private HashNode<T> find(String key) {
+        HashNode<T> element = table.get(indexFor(key, capacity));
+        /** Traverse through bucket until find matching key */
+        while (element != null && element.key != null) {
+            if (element.key.equals(key) == true) {
+                return element;
+            }
+            element = element.getNext();
+        }
+        if (oldTable != null) {
+            element = oldTable.get(indexFor(key, oldCapacity));
+            while (element != null && element.key != null) {
+                if (element.key.equals(key) == true) {
+                    return element;
+                }
+                element = element.getNext();
+            }
+        }
+        return null;
     }
 
     /**
@@ -164,23 +418,24 @@ public class HashTable<T> {
      *                when key is not present in table
      */
     public T get(String key) {
-        int index = 0;
-        HashNode<T> element;
-
-        index = Math.abs(key.hashCode()) % capacity;
-        element = this.table.get(index);
+        HashNode<T> element = find(key);
         /** if key does not exist in table */
-        if (element.key == null) {
+        if (element == null) {
             throw new NoSuchElementException();
         }
-        /** Traverse through table until find matching key */
-        while (element != null) {
-            if (element.key.equals(key) == true) {
-                return element.value;
-            }
-            element = element.getNext();
-        }
-        throw new NoSuchElementException();
+        return element.value;
+    }
+
+    /**
+     * Returns the value of the specified key, or the default value if the key is not present
+     *
+     * @param key          the key that is to be found
+     * @param defaultValue the value returned when key is not present
+     * @return the value of the key found or defaultValue
+     */
+    public T getOrDefault(String key, T defaultValue) {
+        HashNode<T> element = find(key);
+        return element == null ? defaultValue : element.value;
     }
 
     /**
@@ -190,58 +445,81 @@ public class HashTable<T> {
      * @param value the value that will be added
      */
     public void put(String key, T value) {
-        int index;
-        HashNode nodeptr = null;
-        HashNode node;
-        HashNode prev;
-        boolean found;
-
-        prev = null;
-        found = false;
-        node = new HashNode(key, value);
-        index = Math.abs(key.hashCode()) % capacity;
-        try {
-            nodeptr = table.get(index);
-            /** Traverse through table and check if duplicate keys or else add to correct index */
-            while (nodeptr != null) {
-                /** if Integer add to previous value */
-                if (key.equals(nodeptr.key) == true) {
-                    if (value instanceof Integer && nodeptr.value instanceof Integer) {
-                        nodeptr.value = (Integer) value + (Integer) nodeptr.value;
-                        found = true;
-                        break;
-                    }
-                    /** If not integer, replace value */
-                    else {
-                        nodeptr.value = value;
-                        found = true;
-                        break;
-                    }
-                }
-                /** Traverse to next bucket in table */
-                else {
-                    prev = nodeptr;
-                    nodeptr = nodeptr.getNext();
-                }
+        HashNode<T> nodeptr;
+
+        if (oldTable != null) {
+            rehashStep();
+        }
+        nodeptr = find(key);
+        /** if duplicate key and Integer, add to previous value */
+        if (nodeptr != null) {
+            if (value instanceof Integer && nodeptr.value instanceof Integer) {
+                /** value is an Integer here, so T is Integer and the sum is a T */
+                @SuppressWarnings("unchecked")
+                T sum = (T) (Integer) ((Integer) value + (Integer) nodeptr.value);
+                nodeptr.value = sum;
             }
-            /** If not duplicate, then add within bucket or add to slot itself */
-            if (found == false) {
-                if (prev.key != null) {
-                    prev.setNext(node);
-                } else {
-                    table.set(index, node);
-                }
-                size++;
+            /** If not integer, replace value */
+            else {
+                nodeptr.value = value;
             }
-        } catch (IndexOutOfBoundsException e) {
+            return;
+        }
+        /** If not duplicate, then add within bucket or add to slot itself */
+        link(table, indexFor(key, capacity), new HashNode<T>(key, value));
+        size++;
+        /** Start growing the table once the load factor is exceeded */
+        if (oldTable == null && size > capacity * loadFactor) {
+            resize();
         }
-        /** Adjust capacity if load factor is 1 */
-        if (size / capacity == 1) {
-            table.ensureCapacity(capacity * 2);
-            HashNode<T> empty = new HashNode<T>(null, null);
-            for (int i = size; i < capacity; i++) {
-                table.add(i, empty);
+    }
+
+    /**
+     * Adds the node to the front of the specified bucket
+     *
+     * @param buckets the buckets the node is added to
+     * @param index   the index of the bucket
+     * @param node    the node to add
+     */
+    private void link(ArrayList<HashNode<T>> buckets, int index, HashNode<T> node) {
+        HashNode<T> head = buckets.get(index);
+        /** the empty node is shared by buckets so it must never be linked to */
+        node.setNext(head.key != null ? head : null);
+        buckets.set(index, node);
+    }
+
+    /**
+     * Doubles the number of buckets; keys are moved over a few buckets at a time by later operations
+     */
+    private void resize() {
+        resizeCount++;
+        oldTable = table;
+        oldCapacity = capacity;
+        rehashIndex = 0;
+        capacity = capacity * 2;
+        table = buckets(capacity);
+    }
+
+    /**
+     * Moves the next few buckets of the old table into the new table
+     */
+    private void rehashStep() {
+        HashNode<T> node, next;
+        HashNode<T> empty = table.get(0).key == null ? table.get(0) : new HashNode<T>(null, null);
+        for (int n = 0; n < REHASH_STEP && rehashIndex < oldCapacity; n++, rehashIndex++) {
+            node = oldTable.get(rehashIndex);
+            /** Relink each node of the old bucket into its new bucket */
+            while (node != null && node.key != null) {
+                next = node.getNext();
+                link(table, indexFor(node.key, capacity), node);
+                node = next;
             }
+            oldTable.set(rehashIndex, empty);
+        }
+        /** every old bucket has been moved so the old table can be dropped */
+        if (rehashIndex == oldCapacity) {
+            oldTable = null;
+            oldCapacity = 0;
         }
     }
 
@@ -254,38 +532,52 @@ public class HashTable<T> {
      *                if key is not found in table
      */
     public T remove(String key) {
-        /** stores the index that the key is at */
-        int index;
-        HashNode node;
-        /** stores the prev node if it is in a bucket */
-        HashNode prev = null;
-        HashNode save;
-
-        index = Math.abs(key.hashCode()) % capacity;
-        node = table.get(index);
-        /** if key is not present in table */
-        if (node.key == null) {
+        T value;
+        if (oldTable != null) {
+            rehashStep();
+        }
+        value = unlink(table, indexFor(key, capacity), key);
+        /** key may not have been rehashed into the new buckets yet */
+        if (value == null && oldTable != null) {
+            value = unlink(oldTable, indexFor(key, oldCapacity), key);
+        }
+        if (value == null) {
             throw new NoSuchElementException();
         }
+        return value;
+    }
+
+    /**
+     * Removes the node holding the key from the specified bucket
+     *
+     * @param buckets the buckets the key is searched in
+     * @param index   the index of the bucket
+     * @param key     the key to be removed
+     * @return the value of the removed key or null if it was not in the bucket
+     */
+    private T unlink(ArrayList<HashNode<T>> buckets, int index, String key) {
+        HashNode<T> node = buckets.get(index);
+        /** stores the prev node if it is in a bucket */
+        HashNode<T> prev = null;
+        HashNode<T> save;
+
         /** If entry is not found */
-        while (node != null) {
+        while (node != null && node.key != null) {
             if (key.equals(node.key) == true) {
                 save = node.getNext();
                 /** if not the first node of list or only node at index */
                 if (prev != null) {
                     prev.setNext(save);
-                    size--;
-                    return (T) node.value;
                 }
                 /** if first node or only node */
                 else {
                     if (save == null) {
-                        save = new HashNode(null, null);
+                        save = new HashNode<T>(null, null);
                     }
-                    table.set(index, save);
-                    size--;
-                    return (T) node.value;
+                    buckets.set(index, save);
                 }
+                size--;
+                return node.value;
             }
             /** Traverse to next node within bucket */
             else {
@@ -293,7 +585,7 @@ public class HashTable<T> {
                 node = node.getNext();
             }
         }
-        throw new NoSuchElementException();
+        return null;
     }
 
     /**
@@ -304,4 +596,4 @@ public class HashTable<T> {
     public int size() {
         return this.size;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,562 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A class to represent a HashTable from String keys to int counts that uses open addressing
+ * and keeps its keys and values in arrays so no node or Integer is allocated per key. The keys
+ * are kept as bytes in a KeyArena, so no String is kept per key either
+ * @author Shravani Suram
+ */
+public class IntCounterTable {
+    /**
+     * nested class representing a copied key and its count
+     */
+    public static class Entry implements Comparable<Entry> {
+        /**
+         * stores the key of the entry
+         */
+        private String key;
+        /**
+         * stores the count of the entry
+         */
+        private int value;
+
+        /**
+         * Creates an Entry object
+         *
+         * @param key   the key of the Entry
+         * @param value the count of the Entry
+         */
+        public Entry(String key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * Returns the key of the entry
+         *
+         * @return the key of the entry
+         */
+        public String getKey() {
+            return this.key;
+        }
+
+        /**
+         * Returns the count of the entry
+         *
+         * @return the count of the entry
+         */
+        public int getValue() {
+            return this.value;
+        }
+
+        /**
+         * Compares the entries by their counts
+         *
+         * @return negative, zero or positive as this count is less than, equal to or greater than the other
+         */
+        @Override
+        public int compareTo(Entry entry) {
+            return Integer.compare(this.value, entry.value);
+        }
+    }
+
+    /**
+     * Default ratio of keys to slots at which the table grows
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Stores for every slot the index of its key plus one, or 0 if the slot is empty
+     */
+    private int[] slots;
+    /**
+     * Stores the keys in the order they were inserted
+     */
+    private KeyArena keys;
+    /**
+     * Stores the hash code of every key so growing never has to rehash a String
+     */
+    private int[] hashes;
+    /**
+     * Stores the count of every key
+     */
+    private int[] values;
+    /**
+     * Stores the number of keys in the table
+     */
+    private int size = 0;
+    /**
+     * Stores the ratio of keys to slots at which the table grows
+     */
+    private float loadFactor;
+    /**
+     * Stores the number of keys at which the table grows
+     */
+    private int threshold;
+    /**
+     * Stores the number of times the table grew
+     */
+    private int resizeCount = 0;
+    /**
+     * Stores the most slots probed to find any key; keys never move until the table grows
+     */
+    private int maxProbe = 0;
+    /**
+     * Stores the sum of the number of slots probed to find every key
+     */
+    private long totalProbe = 0;
+
+    /**
+     * Creates the IntCounterTable object with room for 16 keys
+     */
+    public IntCounterTable() {
+        this(16);
+    }
+
+    /**
+     * Creates the IntCounterTable object with given capacity
+     *
+     * @param capacity the number of keys the table can hold before growing
+     * @throws throws IllegalArgumentException
+     *                if capacity is negative
+     */
+    public IntCounterTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates the IntCounterTable object with given capacity and load factor
+     *
+     * @param capacity   the number of keys the table can hold before growing
+     * @param loadFactor the ratio of keys to slots at which the table grows, less than 1
+     * @throws throws IllegalArgumentException
+     *                if capacity is negative or loadFactor is not between 0 and 1
+     */
+    public IntCounterTable(int capacity, float loadFactor) {
+        if (capacity < 0 || !(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.loadFactor = loadFactor;
+        int slotCount = 2;
+        /** smallest power of two that holds capacity keys under the load factor */
+        while (slotCount * loadFactor < capacity) {
+            slotCount <<= 1;
+        }
+        slots = new int[slotCount];
+        threshold = (int) (slotCount * loadFactor);
+        keys = new KeyArena(Math.max(threshold, 1));
+        hashes = new int[Math.max(threshold, 1)];
+        values = new int[hashes.length];
+    }
+
+    /**
+     * Spreads the high bits of the hash code into the low bits used to pick a slot
+     *
+     * @param hash the hash code of the key
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the index of the key in the key arrays
+     *
+     * @param key  the key that is to be found
+     * @param hash the hash code of the key
+     * @return the index of the key or -1 if not present
+     */
+    private int indexOf(String key, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        /** probe until the key or an empty slot is found */
+        while ((entry = slots[slot]) != 0) {
+            if (hashes[entry - 1] == hash && keys.matches(entry - 1, key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the hash code the String of the characters would have
+     *
+     * @param buf the buffer holding the key
+     * @param off the index of the first character of the key
+     * @param len the number of characters in the key
+     * @return the hash code of the key
+     */
+    static int hash(char[] buf, int off, int len) {
+        int hash = 0;
+        for (int i = off; i < off + len; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the index of the key held in a character buffer in the key arrays
+     *
+     * @param buf  the buffer holding the key
+     * @param off  the index of the first character of the key
+     * @param len  the number of characters in the key
+     * @param hash the hash code of the key
+     * @return the index of the key or -1 if not present
+     */
+    private int indexOf(char[] buf, int off, int len, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        /** probe until the key or an empty slot is found */
+        while ((entry = slots[slot]) != 0) {
+            if (hashes[entry - 1] == hash && keys.matches(entry - 1, buf, off, len)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the key last added to the arena with the given count, growing the table if needed
+     *
+     * @param hash  the hash code of the key
+     * @param value the count of the key
+     */
+    private void insert(int hash, int value) {
+        if (size >= threshold) {
+            grow();
+        }
+        hashes[size] = hash;
+        values[size] = value;
+        size++;
+        place(size - 1);
+    }
+
+    /**
+     * Points the first free slot of the key's probe sequence at the key
+     *
+     * @param index the index of the key in the key arrays
+     */
+    private void place(int index) {
+        int mask = slots.length - 1;
+        int slot = mix(hashes[index]) & mask;
+        int probe = 1;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+            probe++;
+        }
+        slots[slot] = index + 1;
+        maxProbe = Math.max(maxProbe, probe);
+        totalProbe += probe;
+    }
+
+    /**
+     * Doubles the number of slots and re-places every key using its stored hash
+     */
+    private void grow() {
+        resizeCount++;
+        int length = slots.length * 2;
+        while ((int) (length * loadFactor) <= size) {
+            length <<= 1;
+        }
+        slots = new int[length];
+        maxProbe = 0;
+        totalProbe = 0;
+        threshold = (int) (length * loadFactor);
+        hashes = Arrays.copyOf(hashes, threshold);
+        values = Arrays.copyOf(values, threshold);
+        for (int i = 0; i < size; i++) {
+            place(i);
+        }
+    }
+
+    /**
+     * Adds the value to the count of the key, inserting the key if it is not present
+     *
+     * @param key   the key that will be added
+     * @param value the amount added to the count of the key
+     */
+    public void put(String key, int value) {
+        add(key, value);
+    }
+
+    /**
+     * Adds the value to the count of the key, inserting the key if it is not present
+     *
+     * @param key   the key that will be added
+     * @param value the amount added to the count of the key
+     * @return the id of the key, which is the number of keys inserted before it
+     */
+    public int add(String key, int value) {
+        int hash = key.hashCode();
+        int index = indexOf(key, hash);
+        if (index >= 0) {
+            values[index] += value;
+            return index;
+        }
+        keys.add(key);
+        insert(hash, value);
+        return size - 1;
+    }
+
+    /**
+     * Adds the value to the count of the key held in a character buffer, inserting the key if
+     * it is not present. No String is created, even when the key is inserted
+     *
+     * @param buf   the buffer holding the key
+     * @param off   the index of the first character of the key
+     * @param len   the number of characters in the key
+     * @param value the amount added to the count of the key
+     * @return the id of the key, which is the number of keys inserted before it
+     */
+    public int add(char[] buf, int off, int len, int value) {
+        int hash = hash(buf, off, len);
+        int index = indexOf(buf, off, len, hash);
+        if (index >= 0) {
+            values[index] += value;
+            return index;
+        }
+        keys.add(buf, off, len);
+        insert(hash, value);
+        return size - 1;
+    }
+
+    /**
+     * Adds the count of a key of another table to the count of the same key in this table,
+     * copying the key's bytes if it is not present rather than creating a String for it
+     *
+     * @param source the table holding the key
+     * @param id     the id of the key in the source table
+     * @return the id of the key in this table
+     * @throws throws IndexOutOfBoundsException
+     *                if no key of the source table has that id
+     */
+    public int add(IntCounterTable source, int id) {
+        if (id < 0 || id >= source.size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int hash = source.hashes[id];
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (hashes[entry - 1] == hash && keys.matches(entry - 1, source.keys, id)) {
+                values[entry - 1] += source.values[id];
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys.add(source.keys, id);
+        insert(hash, source.values[id]);
+        return size - 1;
+    }
+
+    /**
+     * Replaces the count of the key, inserting the key if it is not present
+     *
+     * @param key   the key that will be set
+     * @param value the new count of the key
+     */
+    public void set(String key, int value) {
+        int hash = key.hashCode();
+        int index = indexOf(key, hash);
+        if (index >= 0) {
+            values[index] = value;
+        } else {
+            keys.add(key);
+            insert(hash, value);
+        }
+    }
+
+    /**
+     * Returns the count of the specified key, if present in the table
+     *
+     * @param key the key that is to be found
+     * @return the count of the key found
+     * @throws throws NoSuchElementException
+     *                when key is not present in table
+     */
+    public int get(String key) {
+        int index = indexOf(key, key.hashCode());
+        if (index < 0) {
+            throw new NoSuchElementException();
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns whether the key is present in the table
+     *
+     * @param key the key that is to be found
+     * @return true if the key is present
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key, key.hashCode()) >= 0;
+    }
+
+    /**
+     * Returns the id of the key, which is the number of keys inserted before it
+     *
+     * @param key the key that is to be found
+     * @return the id of the key or -1 if not present
+     */
+    public int idOf(String key) {
+        return indexOf(key, key.hashCode());
+    }
+
+    /**
+     * Returns the id of the key held in a character buffer
+     *
+     * @param buf the buffer holding the key
+     * @param off the index of the first character of the key
+     * @param len the number of characters in the key
+     * @return the id of the key or -1 if not present
+     */
+    public int idOf(char[] buf, int off, int len) {
+        return indexOf(buf, off, len, hash(buf, off, len));
+    }
+
+    /**
+     * Returns the key with the specified id
+     *
+     * @param id the id of the key
+     * @return the key with that id
+     * @throws throws IndexOutOfBoundsException
+     *                if no key has that id
+     */
+    public String keyAt(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return keys.get(id);
+    }
+
+    /**
+     * Returns the count of the key with the specified id
+     *
+     * @param id the id of the key
+     * @return the count of the key with that id
+     * @throws throws IndexOutOfBoundsException
+     *                if no key has that id
+     */
+    public int valueAt(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return values[id];
+    }
+
+    /**
+     * Returns the array holding the count of every key by id; it is not copied, so it
+     * must not be modified and is only valid until the next key is inserted
+     *
+     * @return the counts indexed by id, of which the first size() are used
+     */
+    int[] counts() {
+        return values;
+    }
+
+    /**
+     * Returns the ids of the keys in key order, extending an earlier result with the keys
+     * inserted since rather than sorting every key again
+     *
+     * @param sorted the ids of the first sorted.length keys in key order, or an empty array
+     * @return the ids of every key in key order
+     */
+    int[] sortedIds(int[] sorted) {
+        return keys.sort(sorted);
+    }
+
+    /**
+     * Compares a key with a prefix
+     *
+     * @param id     the id of the key
+     * @param prefix the prefix, encoded by KeyArena.encode
+     * @return 0 if the key starts with the prefix, otherwise negative or positive as the key is
+     *         before or after every key starting with it
+     */
+    int comparePrefix(int id, byte[] prefix) {
+        return keys.comparePrefix(id, prefix);
+    }
+
+    /**
+     * Returns the number of bytes holding the keys
+     *
+     * @return the size of the key arena in bytes
+     */
+    public long getKeyMemory() {
+        return keys.memory();
+    }
+
+    /**
+     * Returns the number of slots in the table
+     *
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the ratio of keys to slots at which the table grows
+     *
+     * @return the load factor of the table
+     */
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * Returns the number of times the table grew
+     *
+     * @return the resize count
+     */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the most slots probed to find any key, kept as keys are placed
+     *
+     * @return the longest probe sequence, or 0 if the table is empty
+     */
+    public int getMaxProbeLength() {
+        return maxProbe;
+    }
+
+    /**
+     * Returns the mean number of slots probed to find a key, kept as keys are placed
+     *
+     * @return the mean probe length, or 0 if the table is empty
+     */
+    public double getMeanProbeLength() {
+        return size == 0 ? 0 : (double) totalProbe / size;
+    }
+
+    /**
+     * Copies the keys and counts into an ArrayList in the order the keys were inserted
+     *
+     * @return the list of entries
+     */
+    public ArrayList<Entry> getTable() {
+        ArrayList<Entry> array = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++) {
+            array.add(new Entry(keys.get(i), values[i]));
+        }
+        return array;
+    }
+
+    /**
+     * Returns the number of elements in the table
+     *
+     * @return the number of elements in table
+     */
+    public int size() {
+        return this.size;
+    }
+}
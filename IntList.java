@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * A class to represent a growable list of ints stored in a single array
+ * @author Shravani Suram
+ */
+public class IntList {
+    /** stores the elements of the list */
+    private int[] elements;
+    /** stores the number of elements in the list */
+    private int size = 0;
+
+    /**
+     * Creates an empty IntList
+     */
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty IntList with room for the given number of elements
+     * @param capacity the number of elements the list can hold before growing
+     * @throws IllegalArgumentException
+     *         if capacity is negative
+     */
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        elements = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds an element to the end of the list
+     * @param value the element to add
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            /** grows by half so large lists do not double past what the heap can hold */
+            elements = Arrays.copyOf(elements, (int) Math.min(Integer.MAX_VALUE - 8, size + (size >> 1) + 1L));
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * Returns the element at the specified index
+     * @param index the index of the element
+     * @return the element at index
+     * @throws IndexOutOfBoundsException
+     *         if index is not in the list
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return elements[index];
+    }
+
+    /**
+     * Returns the index of the first occurrence of the value
+     * @param value the element to find
+     * @return the first index of value or -1 if it is not in the list
+     */
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements in the list
+     * @return the number of elements in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the array holding the elements; it is not copied, so it must not be modified
+     * and is only valid until the next element is added
+     * @return the elements, of which the first size() are used
+     */
+    int[] array() {
+        return elements;
+    }
+
+    /**
+     * Copies the elements into an array of exactly the list's size
+     * @return the elements of the list
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
@@ -0,0 +1,167 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A class that records WordStat metrics and publishes them as an MXBean, so they can be read
+ * with JConsole or any other JMX client
+ * @author Shravani Suram
+ */
+public class JmxWordStatMetrics implements WordStatMetrics, WordStatMXBean {
+    /** Default name the bean is registered under */
+    public static final String DEFAULT_NAME = "WordStats:type=WordStat";
+
+    /** stores the throughput of the last tokenizing pass over a file in bytes per second */
+    private volatile double bytesPerSecond;
+    /** stores the throughput of the last tokenizing pass in words per second */
+    private volatile double tokensPerSecond;
+    /** stores the shape of the last table built, as size, capacity, max probe and resizes */
+    private volatile int[] table = new int[4];
+    /** stores the load factor of the last table built */
+    private volatile float loadFactor;
+    /** stores the mean probe length of the last table built */
+    private volatile double meanProbe;
+    /** stores the milliseconds spent in each phase */
+    private ConcurrentHashMap<String, DoubleAdder> phases = new ConcurrentHashMap<String, DoubleAdder>();
+    /** stores the latencies of each query */
+    private ConcurrentHashMap<String, LatencyHistogram> queries = new ConcurrentHashMap<String, LatencyHistogram>();
+    /** stores the number of failures */
+    private AtomicLong failures = new AtomicLong();
+
+    /**
+     * Creates the metrics and registers them with the platform MBean server under the default name
+     * @return the registered metrics, to be passed to WordStat.setMetrics
+     * @throws JMException if the bean cannot be registered
+     */
+    public static JmxWordStatMetrics register() throws JMException {
+        return register(DEFAULT_NAME);
+    }
+
+    /**
+     * Creates the metrics and registers them with the platform MBean server
+     * @param name the object name to register under
+     * @return the registered metrics, to be passed to WordStat.setMetrics
+     * @throws JMException if the bean cannot be registered
+     */
+    public static JmxWordStatMetrics register(String name) throws JMException {
+        JmxWordStatMetrics metrics = new JmxWordStatMetrics();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(name));
+        return metrics;
+    }
+
+    @Override
+    public void tokenized(long bytes, long tokens, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        if (bytes > 0) {
+            bytesPerSecond = bytes / seconds;
+        }
+        tokensPerSecond = tokens / seconds;
+    }
+
+    @Override
+    public void phase(String phase, long nanos) {
+        phases.computeIfAbsent(phase, name -> new DoubleAdder()).add(nanos / 1e6);
+    }
+
+    @Override
+    public void query(String query, long nanos) {
+        queries.computeIfAbsent(query, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public void table(int size, int capacity, float loadFactor, int maxProbe, double meanProbe, int resizes) {
+        this.loadFactor = loadFactor;
+        this.meanProbe = meanProbe;
+        this.table = new int[] {size, capacity, maxProbe, resizes};
+    }
+
+    @Override
+    public void failed(String phase, Exception e) {
+        failures.incrementAndGet();
+    }
+
+    @Override
+    public double getTokenizeBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
+    @Override
+    public int getTableSize() {
+        return table[0];
+    }
+
+    @Override
+    public int getTableCapacity() {
+        return table[1];
+    }
+
+    @Override
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    @Override
+    public int getMaxProbeLength() {
+        return table[2];
+    }
+
+    @Override
+    public double getMeanProbeLength() {
+        return meanProbe;
+    }
+
+    @Override
+    public int getResizeCount() {
+        return table[3];
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMillis() {
+        TreeMap<String, Double> millis = new TreeMap<String, Double>();
+        phases.forEach((name, total) -> millis.put(name, total.sum()));
+        return millis;
+    }
+
+    @Override
+    public Map<String, Long> getQueryCounts() {
+        TreeMap<String, Long> counts = new TreeMap<String, Long>();
+        queries.forEach((name, histogram) -> counts.put(name, histogram.count()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getQueryP50Micros() {
+        return percentiles(0.5);
+    }
+
+    @Override
+    public Map<String, Double> getQueryP99Micros() {
+        return percentiles(0.99);
+    }
+
+    /**
+     * Returns a percentile of the latency of every query
+     * @param fraction the fraction of latencies at or below the percentile
+     * @return the microseconds by query name
+     */
+    private Map<String, Double> percentiles(double fraction) {
+        TreeMap<String, Double> micros = new TreeMap<String, Double>();
+        queries.forEach((name, histogram) -> micros.put(name, histogram.percentile(fraction) / 1e3));
+        return micros;
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.get();
+    }
+}
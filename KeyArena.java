@@ -0,0 +1,430 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A class that stores String keys as bytes packed one after another in blocks, so a key costs
+ * its bytes plus twelve bytes of position and length instead of a String and its array. The
+ * first block is sized for the expected number of keys and doubles in place up to 1 MiB, so
+ * small arenas stay small, and further keys go to new blocks of 1 MiB.
+ * Keys are encoded as UTF-8, except that each half of a surrogate pair is encoded on its own as
+ * CESU-8 does; every char then takes one to three bytes, keys compare equal exactly when their
+ * chars do, and comparing the bytes orders keys the way String.compareTo does
+ * @author Shravani Suram
+ */
+public class KeyArena {
+    /** Number of bytes in a full block, unless a single key needs more */
+    private static final int BLOCK_SIZE = 1 << 20;
+    /** Fewest bytes the first block is created with */
+    private static final int MIN_BLOCK_SIZE = 256;
+    /** Number of bytes the first block is sized with for every key the arena expects */
+    private static final int BYTES_PER_KEY = 8;
+
+    /** stores the blocks holding the bytes of the keys */
+    private byte[][] blocks = new byte[1][];
+    /** stores the number of blocks in use */
+    private int blockCount = 0;
+    /** stores the number of bytes used in the last block */
+    private int used = 0;
+    /** stores the number of bytes the first block is created with */
+    private int firstBlock;
+    /** stores the block of every key in the high half and its offset in the block in the low half */
+    private long[] positions;
+    /** stores the number of bytes of every key */
+    private int[] lengths;
+    /** stores the number of keys */
+    private int size = 0;
+
+    /**
+     * Creates an empty KeyArena
+     * @param capacity the number of keys the arena holds before its index grows, which also sizes the first block
+     * @throws IllegalArgumentException
+     *         if capacity is negative
+     */
+    public KeyArena(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        positions = new long[Math.max(capacity, 1)];
+        lengths = new int[positions.length];
+        firstBlock = (int) Math.min(BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, (long) capacity * BYTES_PER_KEY));
+    }
+
+    /**
+     * Returns the number of bytes a char is encoded in
+     * @param c the char
+     * @return 1, 2 or 3
+     */
+    private static int width(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    /**
+     * Makes room for a key of the specified number of bytes
+     * @param bytes the number of bytes of the key
+     * @return the block the key is written to
+     */
+    private byte[] reserve(int bytes) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, (int) Math.min(Integer.MAX_VALUE - 8, size + (size >> 1) + 1L));
+            lengths = Arrays.copyOf(lengths, positions.length);
+        }
+        if (blockCount == 0) {
+            blocks[blockCount++] = new byte[Math.max(firstBlock, bytes)];
+            used = 0;
+        } else if (used + bytes > blocks[blockCount - 1].length) {
+            byte[] last = blocks[blockCount - 1];
+            if (last.length < BLOCK_SIZE) {
+                /** a block that is not full size is copied into a larger one, so its keys keep their offsets */
+                blocks[blockCount - 1] = Arrays.copyOf(last, Math.max(Math.min(BLOCK_SIZE, last.length * 2), used + bytes));
+            } else {
+                if (blockCount == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, blockCount * 2);
+                }
+                blocks[blockCount++] = new byte[Math.max(BLOCK_SIZE, bytes)];
+                used = 0;
+            }
+        }
+        positions[size] = (long) (blockCount - 1) << 32 | used;
+        lengths[size] = bytes;
+        return blocks[blockCount - 1];
+    }
+
+    /**
+     * Writes one char at a position of a block
+     * @param block the block
+     * @param at the index of the first byte
+     * @param c the char
+     * @return the index after the last byte written
+     */
+    private static int put(byte[] block, int at, char c) {
+        if (c < 0x80) {
+            block[at++] = (byte) c;
+        } else if (c < 0x800) {
+            block[at++] = (byte) (0xC0 | c >> 6);
+            block[at++] = (byte) (0x80 | c & 0x3F);
+        } else {
+            block[at++] = (byte) (0xE0 | c >> 12);
+            block[at++] = (byte) (0x80 | c >> 6 & 0x3F);
+            block[at++] = (byte) (0x80 | c & 0x3F);
+        }
+        return at;
+    }
+
+    /**
+     * Reads one char at a position of a block
+     * @param block the block
+     * @param at the index of the first byte of the char
+     * @return the char
+     */
+    private static char get(byte[] block, int at) {
+        int b = block[at];
+        if (b >= 0) {
+            return (char) b;
+        }
+        if ((b & 0xE0) == 0xC0) {
+            return (char) ((b & 0x1F) << 6 | block[at + 1] & 0x3F);
+        }
+        return (char) ((b & 0x0F) << 12 | (block[at + 1] & 0x3F) << 6 | block[at + 2] & 0x3F);
+    }
+
+    /**
+     * Returns whether the bytes at a position of a block encode a char of two or three bytes
+     * @param block the block
+     * @param at the index of the first byte, with room for every byte of the char
+     * @param c the char
+     * @return true if the bytes are the encoding of the char
+     */
+    private static boolean same(byte[] block, int at, char c) {
+        if (c < 0x800) {
+            return block[at] == (byte) (0xC0 | c >> 6) && block[at + 1] == (byte) (0x80 | c & 0x3F);
+        }
+        return block[at] == (byte) (0xE0 | c >> 12) && block[at + 1] == (byte) (0x80 | c >> 6 & 0x3F)
+                && block[at + 2] == (byte) (0x80 | c & 0x3F);
+    }
+
+    /**
+     * Adds a key held in a character buffer
+     * @param buf the buffer holding the key
+     * @param off the index of the first character of the key
+     * @param len the number of characters in the key
+     * @return the index of the key, which is the number of keys added before it
+     */
+    public int add(char[] buf, int off, int len) {
+        int bytes = 0;
+        for (int i = off; i < off + len; i++) {
+            bytes += width(buf[i]);
+        }
+        byte[] block = reserve(bytes);
+        int at = used;
+        for (int i = off; i < off + len; i++) {
+            at = put(block, at, buf[i]);
+        }
+        used = at;
+        return size++;
+    }
+
+    /**
+     * Adds a key
+     * @param key the key
+     * @return the index of the key, which is the number of keys added before it
+     */
+    public int add(String key) {
+        int bytes = 0;
+        for (int i = 0; i < key.length(); i++) {
+            bytes += width(key.charAt(i));
+        }
+        byte[] block = reserve(bytes);
+        int at = used;
+        for (int i = 0; i < key.length(); i++) {
+            at = put(block, at, key.charAt(i));
+        }
+        used = at;
+        return size++;
+    }
+
+    /**
+     * Adds a key of another arena, copying its bytes without decoding them
+     * @param other the arena holding the key
+     * @param index the index of the key in the other arena
+     * @return the index of the key in this arena
+     */
+    public int add(KeyArena other, int index) {
+        int bytes = other.lengths[index];
+        byte[] block = reserve(bytes);
+        System.arraycopy(other.blocks[(int) (other.positions[index] >>> 32)], (int) other.positions[index], block, used, bytes);
+        used += bytes;
+        return size++;
+    }
+
+    /**
+     * Returns whether a key equals the characters in a buffer
+     * @param index the index of the key
+     * @param buf the buffer holding the other key
+     * @param off the index of the first character of the other key
+     * @param len the number of characters in the other key
+     * @return true if they are the same characters
+     */
+    public boolean matches(int index, char[] buf, int off, int len) {
+        int bytes = lengths[index];
+        if (bytes < len || bytes > 3 * len) {
+            return false;
+        }
+        byte[] block = blocks[(int) (positions[index] >>> 32)];
+        int at = (int) positions[index];
+        int end = at + bytes;
+        for (int i = off; i < off + len; i++) {
+            char c = buf[i];
+            /** most keys are ASCII, where a byte is a char */
+            if (c < 0x80) {
+                if (at == end || block[at++] != c) {
+                    return false;
+                }
+            } else if (at + width(c) > end || same(block, at, c) == false) {
+                return false;
+            } else {
+                at += width(c);
+            }
+        }
+        return at == end;
+    }
+
+    /**
+     * Returns whether a key equals a String
+     * @param index the index of the key
+     * @param key the other key
+     * @return true if they are the same characters
+     */
+    public boolean matches(int index, String key) {
+        int len = key.length();
+        int bytes = lengths[index];
+        if (bytes < len || bytes > 3 * len) {
+            return false;
+        }
+        byte[] block = blocks[(int) (positions[index] >>> 32)];
+        int at = (int) positions[index];
+        int end = at + bytes;
+        for (int i = 0; i < len; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                if (at == end || block[at++] != c) {
+                    return false;
+                }
+            } else if (at + width(c) > end || same(block, at, c) == false) {
+                return false;
+            } else {
+                at += width(c);
+            }
+        }
+        return at == end;
+    }
+
+    /**
+     * Returns whether a key equals a key of another arena
+     * @param index the index of the key
+     * @param other the arena holding the other key
+     * @param otherIndex the index of the other key in its arena
+     * @return true if they are the same bytes
+     */
+    public boolean matches(int index, KeyArena other, int otherIndex) {
+        int bytes = lengths[index];
+        if (other.lengths[otherIndex] != bytes) {
+            return false;
+        }
+        int at = (int) positions[index];
+        int otherAt = (int) other.positions[otherIndex];
+        return Arrays.equals(blocks[(int) (positions[index] >>> 32)], at, at + bytes,
+                other.blocks[(int) (other.positions[otherIndex] >>> 32)], otherAt, otherAt + bytes);
+    }
+
+    /**
+     * Decodes a key
+     * @param index the index of the key
+     * @return the key as a new String
+     * @throws IndexOutOfBoundsException
+     *         if no key has that index
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        byte[] block = blocks[(int) (positions[index] >>> 32)];
+        int at = (int) positions[index];
+        int end = at + lengths[index];
+        int ascii = at;
+        while (ascii < end && block[ascii] >= 0) {
+            ascii++;
+        }
+        if (ascii == end) {
+            return new String(block, at, lengths[index], StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[lengths[index]];
+        int length = 0;
+        while (at < end) {
+            char c = get(block, at);
+            at += width(c);
+            chars[length++] = c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Compares two keys the way String.compareTo does
+     * @param a the index of one key
+     * @param b the index of the other key
+     * @return negative, zero or positive as key a is before, equal to or after key b
+     */
+    public int compare(int a, int b) {
+        int at = (int) positions[a];
+        int bAt = (int) positions[b];
+        return Arrays.compareUnsigned(blocks[(int) (positions[a] >>> 32)], at, at + lengths[a],
+                blocks[(int) (positions[b] >>> 32)], bAt, bAt + lengths[b]);
+    }
+
+    /**
+     * Compares a key with a prefix
+     * @param index the index of the key
+     * @param prefix the prefix, encoded by encode
+     * @return 0 if the key starts with the prefix, otherwise negative or positive as the key is
+     *         before or after every key starting with it
+     */
+    public int comparePrefix(int index, byte[] prefix) {
+        int at = (int) positions[index];
+        int length = Math.min(lengths[index], prefix.length);
+        int order = Arrays.compareUnsigned(blocks[(int) (positions[index] >>> 32)], at, at + length, prefix, 0, length);
+        if (order != 0) {
+            return order;
+        }
+        return lengths[index] >= prefix.length ? 0 : -1;
+    }
+
+    /**
+     * Encodes a String the way keys are stored
+     * @param key the String
+     * @return its bytes
+     */
+    public static byte[] encode(String key) {
+        int bytes = 0;
+        for (int i = 0; i < key.length(); i++) {
+            bytes += width(key.charAt(i));
+        }
+        byte[] encoded = new byte[bytes];
+        int at = 0;
+        for (int i = 0; i < key.length(); i++) {
+            at = put(encoded, at, key.charAt(i));
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the indexes of the keys in key order, extending an earlier result rather than
+     * sorting again; keys added since are sorted on their own and merged in
+     * @param sorted the indexes of the first sorted.length keys in key order, or an empty array
+     * @return the indexes of every key in key order
+     */
+    public int[] sort(int[] sorted) {
+        int[] added = new int[size - sorted.length];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = sorted.length + i;
+        }
+        mergeSort(added, new int[added.length], 0, added.length);
+        int[] result = new int[size];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < size; n++) {
+            result[n] = j == added.length || (i < sorted.length && compare(sorted[i], added[j]) <= 0) ? sorted[i++] : added[j++];
+        }
+        return result;
+    }
+
+    /**
+     * Sorts part of an array of key indexes in key order
+     * @param ids the key indexes
+     * @param scratch an array at least as long as ids
+     * @param from the first index of the part
+     * @param to the index after the last of the part
+     */
+    private void mergeSort(int[] ids, int[] scratch, int from, int to) {
+        if (to - from < 16) {
+            /** insertion sort is faster on short runs */
+            for (int i = from + 1; i < to; i++) {
+                int id = ids[i];
+                int j = i - 1;
+                while (j >= from && compare(ids[j], id) > 0) {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(ids, scratch, from, middle);
+        mergeSort(ids, scratch, middle, to);
+        System.arraycopy(ids, from, scratch, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int n = from; n < to; n++) {
+            ids[n] = j == to || (i < middle && compare(scratch[i], scratch[j]) <= 0) ? scratch[i++] : scratch[j++];
+        }
+    }
+
+    /**
+     * Returns the number of keys
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the arena holds, counting whole blocks and the index
+     * @return the size of the arena in bytes
+     */
+    public long memory() {
+        long bytes = 12L * positions.length;
+        for (int i = 0; i < blockCount; i++) {
+            bytes += blocks[i].length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A class that counts latencies in buckets whose width grows with the latency, so percentiles are
+ * known to within an eighth of their value in fixed memory. Many threads may record at once
+ * @author Shravani Suram
+ */
+public class LatencyHistogram {
+    /** Number of buckets each power of two is split into */
+    private static final int SUB_BUCKETS = 8;
+
+    /** stores the number of latencies in each bucket */
+    private AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    /**
+     * Returns the bucket of a latency
+     * @param nanos the latency
+     * @return the index of its bucket
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        /** the three bits after the highest one bit pick the sub-bucket */
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return (exponent - 2) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest latency that falls in a bucket
+     * @param bucket the index of the bucket
+     * @return the upper bound of the bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 2;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+
+    /**
+     * Records one latency
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+    }
+
+    /**
+     * Returns the number of latencies recorded
+     * @return the number of latencies
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns an upper bound of the latency the specified fraction of recorded latencies do not exceed
+     * @param fraction the fraction, such as 0.99 for the 99th percentile
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded
+     * @throws IllegalArgumentException
+     *         if fraction is not between 0 and 1
+     */
+    public long percentile(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long target = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+}
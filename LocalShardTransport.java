@@ -0,0 +1,38 @@
+/**
+ * A class that reaches shards living in the same process by calling them directly
+ * @author Shravani Suram
+ */
+public class LocalShardTransport implements ShardTransport {
+    /** stores the shards */
+    private WordShard[] shards;
+
+    /**
+     * Creates a LocalShardTransport with new, empty shards
+     * @param shards the number of shards
+     * @throws IllegalArgumentException
+     *         if shards is not positive
+     */
+    public LocalShardTransport(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.shards = new WordShard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new WordShard(i, shards);
+        }
+    }
+
+    @Override
+    public int shards() {
+        return shards.length;
+    }
+
+    @Override
+    public byte[] call(int shard, byte[] request) {
+        return shards[shard].handle(request);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A class to represent a HashTable from long keys to int counts that uses open addressing
+ * and keeps its keys and values in arrays so no node or boxed value is allocated per key
+ * @author Shravani Suram
+ */
+public class LongCounterTable {
+    /**
+     * Stores for every slot the index of its key plus one, or 0 if the slot is empty
+     */
+    private int[] slots;
+    /**
+     * Stores the keys in the order they were inserted
+     */
+    private long[] keys;
+    /**
+     * Stores the count of every key
+     */
+    private int[] values;
+    /**
+     * Stores the number of keys in the table
+     */
+    private int size = 0;
+    /**
+     * Stores the number of keys at which the table grows
+     */
+    private int threshold;
+
+    /**
+     * Creates the LongCounterTable object with room for 16 keys
+     */
+    public LongCounterTable() {
+        this(16);
+    }
+
+    /**
+     * Creates the LongCounterTable object with given capacity
+     *
+     * @param capacity the number of keys the table can hold before growing
+     * @throws throws IllegalArgumentException
+     *                if capacity is negative
+     */
+    public LongCounterTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        int slotCount = 4;
+        /** smallest power of two that holds capacity keys while staying half empty */
+        while (slotCount / 2 < capacity) {
+            slotCount <<= 1;
+        }
+        slots = new int[slotCount];
+        threshold = slotCount / 2;
+        keys = new long[threshold];
+        values = new int[threshold];
+    }
+
+    /**
+     * Mixes every bit of the key into the bits used to pick a slot
+     *
+     * @param key the key to hash
+     * @return the hash of the key
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Returns the index of the key in the key arrays
+     *
+     * @param key the key that is to be found
+     * @return the index of the key or -1 if not present
+     */
+    private int indexOf(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        /** probe until the key or an empty slot is found */
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Points the first free slot of the key's probe sequence at the key
+     *
+     * @param index the index of the key in the key arrays
+     */
+    private void place(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(keys[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    /**
+     * Doubles the number of slots and re-places every key
+     */
+    private void grow() {
+        slots = new int[slots.length * 2];
+        threshold = slots.length / 2;
+        keys = Arrays.copyOf(keys, threshold);
+        values = Arrays.copyOf(values, threshold);
+        for (int i = 0; i < size; i++) {
+            place(i);
+        }
+    }
+
+    /**
+     * Adds the value to the count of the key, inserting the key if it is not present
+     *
+     * @param key   the key that will be added
+     * @param value the amount added to the count of the key
+     * @return the id of the key, which is the number of keys inserted before it
+     */
+    public int add(long key, int value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] += value;
+            return index;
+        }
+        if (size >= threshold) {
+            grow();
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        place(size - 1);
+        return size - 1;
+    }
+
+    /**
+     * Returns the count of the specified key, if present in the table
+     *
+     * @param key the key that is to be found
+     * @return the count of the key found
+     * @throws throws NoSuchElementException
+     *                when key is not present in table
+     */
+    public int get(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException();
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the id of the key, which is the number of keys inserted before it
+     *
+     * @param key the key that is to be found
+     * @return the id of the key or -1 if not present
+     */
+    public int idOf(long key) {
+        return indexOf(key);
+    }
+
+    /**
+     * Returns the key with the specified id
+     *
+     * @param id the id of the key
+     * @return the key with that id
+     */
+    public long keyAt(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return keys[id];
+    }
+
+    /**
+     * Returns the count of the key with the specified id
+     *
+     * @param id the id of the key
+     * @return the count of the key with that id
+     */
+    public int valueAt(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return values[id];
+    }
+
+    /**
+     * Returns the array holding the count of every key by id; it is not copied, so it
+     * must not be modified and is only valid until the next key is inserted
+     *
+     * @return the counts indexed by id, of which the first size() are used
+     */
+    int[] counts() {
+        return values;
+    }
+
+    /**
+     * Returns the number of elements in the table
+     *
+     * @return the number of elements in table
+     */
+    public int size() {
+        return this.size;
+    }
+}
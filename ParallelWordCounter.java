@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A class that builds a WordStat by memory mapping a file, splitting it at whitespace
+ * and counting every split on its own fork-join worker
+ * @author Shravani Suram
+ */
+class ParallelWordCounter {
+    /** Largest number of bytes a split is planned to hold */
+    private static final long MAX_SPLIT = 64L << 20;
+    /** Largest number of bytes mapped at once */
+    private static final long MAX_MAP = 1L << 30;
+    /** Number of bytes decoded at a time by each worker */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * nested class representing the words of one split of the file and their frequencies
+     */
+    private static class Split extends RecursiveTask<Split> {
+        /** Version of the serialized form, which ForkJoinTask declares but splits never use */
+        private static final long serialVersionUID = 1L;
+
+        /** stores the channel of the file */
+        private FileChannel channel;
+        /** stores the charset of the file */
+        private Charset charset;
+        /** stores the first byte of the split */
+        private long start;
+        /** stores the byte after the split */
+        private long end;
+        /** stores the ids of the normalized words of the split in order, local to the split's table */
+        private IntList order = new IntList();
+        /** stores the normalized words of the split and their frequencies */
+        private IntCounterTable table = new IntCounterTable();
+
+        /**
+         * Creates a Split
+         * @param channel the channel of the file
+         * @param charset the charset of the file
+         * @param start the first byte of the split
+         * @param end the byte after the split
+         */
+        Split(FileChannel channel, Charset charset, long start, long end) {
+            this.channel = channel;
+            this.charset = charset;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Maps the split and counts its words into this split's own table
+         * @return this split
+         */
+        @Override
+        protected Split compute() {
+            ChunkedTokenizer tokenizer = new ChunkedTokenizer(charset, CHUNK_SIZE, (buf, off, len) -> {
+                order.add(table.add(buf, off, len, 1));
+            });
+            try {
+                /** maps the split in pieces small enough for a MappedByteBuffer */
+                for (long position = start; position < end; position += MAX_MAP) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAX_MAP, end - position));
+                    tokenizer.feed(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tokenizer.finish();
+            return this;
+        }
+    }
+
+    /**
+     * Counts the words of a file on several threads
+     * @param file the file containing the text to be examined
+     * @param charset the charset the file is encoded in
+     * @param threads the number of threads counting the file
+     * @return the same statistics as a sequential WordStat of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException
+     *         if threads is not positive
+     */
+    static WordStat count(String file, Charset charset, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        /** whitespace bytes may be part of other characters unless the charset extends ASCII */
+        if (!asciiCompatible(charset)) {
+            IntList order = new IntList();
+            IntCounterTable table = new IntCounterTable(100);
+            Tokenizer.stream(file, charset, (buf, off, len) -> order.add(table.add(buf, off, len, 1)));
+            return new WordStat(order, table);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long splits = Math.max(threads * 4L, (size + MAX_SPLIT - 1) / MAX_SPLIT);
+            long target = Math.max(1, size / splits);
+            ArrayList<Split> tasks = new ArrayList<Split>();
+            long start = 0;
+            while (start < size) {
+                long end = boundary(channel, Math.min(size, start + target), size);
+                tasks.add(new Split(channel, charset, start, end));
+                start = end;
+            }
+            for (Split task : tasks) {
+                pool.execute(task);
+            }
+            return merge(tasks);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Merges the splits in file order so words keep the order they were first seen in
+     * @param tasks the submitted splits in file order
+     * @return the statistics of the whole file
+     * @throws IOException if a split could not be read
+     */
+    private static WordStat merge(ArrayList<Split> tasks) throws IOException {
+        IntList order = new IntList();
+        IntCounterTable table = new IntCounterTable(100);
+        for (Split task : tasks) {
+            Split split = join(task);
+            /** maps the split's ids to ids of the merged table */
+            int[] ids = new int[split.table.size()];
+            for (int id = 0; id < ids.length; id++) {
+                ids[id] = table.add(split.table, id);
+            }
+            for (int i = 0; i < split.order.size(); i++) {
+                order.add(ids[split.order.get(i)]);
+            }
+            /** lets the split's words be collected once merged */
+            split.order = null;
+            split.table = null;
+        }
+        return new WordStat(order, table);
+    }
+
+    /**
+     * Waits for a split to finish, rethrowing the IOException it failed with
+     * @param task the split to wait for
+     * @return the finished split
+     * @throws IOException if the split could not be read
+     */
+    private static Split join(ForkJoinTask<Split> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the position just after the first whitespace byte at or after the planned end of a split
+     * @param channel the channel of the file
+     * @param position the planned end of the split
+     * @param size the size of the file
+     * @return the end of the split
+     * @throws IOException if the file cannot be read
+     */
+    private static long boundary(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == ' ' || b == '\n' || b == '\t' || b == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Returns whether the whitespace characters are the ASCII bytes and never appear inside another character
+     * @param charset the charset to check
+     * @return true if splitting after a whitespace byte never splits a character
+     */
+    private static boolean asciiCompatible(Charset charset) {
+        byte[] whitespace = " \n\t\r".getBytes(charset);
+        boolean ascii = whitespace.length == 4 && whitespace[0] == ' ' && whitespace[1] == '\n'
+                && whitespace[2] == '\t' && whitespace[3] == '\r';
+        /** UTF-8 never uses bytes below 0x80 inside a multi-byte character */
+        return ascii && (charset.newEncoder().maxBytesPerChar() <= 1.0f || charset.name().equals("UTF-8"));
+    }
+}
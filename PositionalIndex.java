@@ -0,0 +1,401 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A class that stores, for every word, the positions of all its occurrences in the token
+ * stream, so queries about where a word appears never scan the stream. The positions of each
+ * word are stored ascending as gaps in a variable number of bytes, with a skip entry every
+ * SKIP positions so a cursor can jump ahead without decoding everything in between
+ * @author Shravani Suram
+ */
+public class PositionalIndex {
+    /**
+     * nested interface representing the work done on one part of the token stream or vocabulary
+     */
+    private interface Part {
+        /**
+         * Does the work on one part
+         * @param part the index of the part
+         */
+        void run(int part);
+    }
+
+    /**
+     * nested class representing a reader of the positions of one word, in ascending order
+     */
+    public class Cursor {
+        /** stores the id of the word */
+        private int id;
+        /** stores the number of positions read */
+        private int read = 0;
+        /** stores the offset in data of the next position */
+        private int offset;
+        /** stores the last position read, or -1 before the first */
+        private int position = -1;
+
+        /**
+         * Creates a Cursor before the first position of a word
+         * @param id the id of the word
+         */
+        private Cursor(int id) {
+            this.id = id;
+            this.offset = start[id];
+        }
+
+        /**
+         * Returns whether the word has positions not yet read
+         * @return true if next can be called
+         */
+        public boolean hasNext() {
+            return read < counts[id];
+        }
+
+        /**
+         * Reads the next position of the word
+         * @return the next position
+         * @throws IndexOutOfBoundsException
+         *         if every position was read
+         */
+        public int next() {
+            if (read >= counts[id]) {
+                throw new IndexOutOfBoundsException();
+            }
+            /** decodes the gap to the next position, seven bits per byte, low bits first */
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                gap |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            read++;
+            position += gap;
+            return position;
+        }
+
+        /**
+         * Moves to the first position at or after the target, using skip entries to pass over
+         * whole blocks of positions that are before it
+         * @param target the position to reach
+         * @return the first position at or after target, or -1 if there is none
+         */
+        public int advance(int target) {
+            if (read > 0 && position >= target) {
+                return position;
+            }
+            int block = read / SKIP;
+            int blocks = skipStart[id + 1] - skipStart[id];
+            /** a skip entry holds the last position before its block, so the block can be passed if that is before target */
+            while (block < blocks && skipPositions[skipStart[id] + block] < target) {
+                int skip = skipStart[id] + block;
+                read = (block + 1) * SKIP;
+                position = skipPositions[skip];
+                offset = skipOffsets[skip];
+                block++;
+            }
+            while (read < counts[id]) {
+                if (next() >= target) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** Number of positions between skip entries */
+    private static final int SKIP = 64;
+
+    /** stores the number of positions of each word */
+    private int[] counts;
+    /** stores where the encoded positions of each word start in data, with one extra end entry */
+    private int[] start;
+    /** stores the gaps between the positions of every word, grouped by id */
+    private byte[] data;
+    /** stores where the skip entries of each word start, with one extra end entry */
+    private int[] skipStart;
+    /** stores for every skip entry the last position before its block */
+    private int[] skipPositions;
+    /** stores for every skip entry the offset in data of its block */
+    private int[] skipOffsets;
+    /** stores the number of positions in the index */
+    private int size;
+
+    /**
+     * Creates a PositionalIndex using every available processor
+     * @param order the ids of the words in order
+     * @param vocabulary the number of distinct word ids
+     */
+    public PositionalIndex(IntList order, int vocabulary) {
+        this(order, vocabulary, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a PositionalIndex, splitting the token stream between threads that each count and
+     * then place the positions of their own part, then splitting the vocabulary between threads
+     * that each encode the positions of their own words
+     * @param order the ids of the words in order
+     * @param vocabulary the number of distinct word ids
+     * @param threads the number of threads building the index
+     * @throws IllegalArgumentException
+     *         if threads is not positive
+     * @throws ArithmeticException
+     *         if the encoded positions do not fit in one array
+     */
+    public PositionalIndex(IntList order, int vocabulary, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] tokens = order.array();
+        size = order.size();
+        /** every part needs a count per word, so small streams are not split */
+        int parts = Math.max(1, Math.min(threads, size / 65536));
+        int[] bounds = new int[parts + 1];
+        for (int p = 0; p <= parts; p++) {
+            bounds[p] = (int) ((long) size * p / parts);
+        }
+        /** counts the occurrences of every word in every part */
+        int[][] next = new int[parts][];
+        run(parts, p -> {
+            int[] partCounts = new int[vocabulary];
+            for (int i = bounds[p]; i < bounds[p + 1]; i++) {
+                partCounts[tokens[i]]++;
+            }
+            next[p] = partCounts;
+        });
+        /** turns the counts into the first index each part writes each word to */
+        int[] flatStart = new int[vocabulary + 1];
+        counts = new int[vocabulary];
+        int offset = 0;
+        for (int id = 0; id < vocabulary; id++) {
+            flatStart[id] = offset;
+            for (int p = 0; p < parts; p++) {
+                int count = next[p][id];
+                next[p][id] = offset;
+                offset += count;
+                counts[id] += count;
+            }
+        }
+        flatStart[vocabulary] = offset;
+        int[] flat = new int[size];
+        run(parts, p -> {
+            int[] index = next[p];
+            for (int i = bounds[p]; i < bounds[p + 1]; i++) {
+                flat[index[tokens[i]]++] = i;
+            }
+        });
+        encode(flat, flatStart, vocabulary, parts);
+    }
+
+    /**
+     * Encodes the positions of every word as gaps and records a skip entry every SKIP positions
+     * @param flat the positions of every word, grouped by id
+     * @param flatStart where the positions of each word start in flat
+     * @param vocabulary the number of distinct word ids
+     * @param parts the number of parts the vocabulary is split into
+     */
+    private void encode(int[] flat, int[] flatStart, int vocabulary, int parts) {
+        int[] idBounds = new int[parts + 1];
+        for (int p = 0; p <= parts; p++) {
+            idBounds[p] = (int) ((long) vocabulary * p / parts);
+        }
+        /** measures the encoded length of every word */
+        long[] lengths = new long[vocabulary];
+        run(parts, p -> {
+            for (int id = idBounds[p]; id < idBounds[p + 1]; id++) {
+                int previous = -1;
+                for (int i = flatStart[id]; i < flatStart[id + 1]; i++) {
+                    lengths[id] += bytes(flat[i] - previous);
+                    previous = flat[i];
+                }
+            }
+        });
+        start = new int[vocabulary + 1];
+        skipStart = new int[vocabulary + 1];
+        long offset = 0;
+        int skips = 0;
+        for (int id = 0; id < vocabulary; id++) {
+            start[id] = Math.toIntExact(offset);
+            skipStart[id] = skips;
+            offset += lengths[id];
+            skips += Math.max(0, (counts[id] - 1) / SKIP);
+        }
+        start[vocabulary] = Math.toIntExact(offset);
+        skipStart[vocabulary] = skips;
+        data = new byte[start[vocabulary]];
+        skipPositions = new int[skips];
+        skipOffsets = new int[skips];
+        run(parts, p -> {
+            for (int id = idBounds[p]; id < idBounds[p + 1]; id++) {
+                int at = start[id];
+                int previous = -1;
+                for (int i = flatStart[id]; i < flatStart[id + 1]; i++) {
+                    int n = i - flatStart[id];
+                    if (n > 0 && n % SKIP == 0) {
+                        int skip = skipStart[id] + n / SKIP - 1;
+                        skipPositions[skip] = previous;
+                        skipOffsets[skip] = at;
+                    }
+                    int gap = flat[i] - previous;
+                    while ((gap & ~0x7f) != 0) {
+                        data[at++] = (byte) ((gap & 0x7f) | 0x80);
+                        gap >>>= 7;
+                    }
+                    data[at++] = (byte) gap;
+                    previous = flat[i];
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of bytes a gap is encoded in
+     * @param gap the gap between two positions
+     * @return the number of bytes, seven bits each
+     */
+    private static int bytes(int gap) {
+        int bytes = 1;
+        while ((gap & ~0x7f) != 0) {
+            gap >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Runs the work on every part in the common pool, with the calling thread helping, if there
+     * is more than one part, and rethrows the first exception any part throws
+     * @param parts the number of parts
+     * @param work the work to run on each part
+     */
+    private static void run(int parts, Part work) {
+        if (parts == 1) {
+            work.run(0);
+            return;
+        }
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(parts);
+        for (int p = 0; p < parts; p++) {
+            int part = p;
+            tasks.add(ForkJoinTask.adapt(() -> work.run(part)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * Returns a cursor before the first position of a word
+     * @param id the id of the word
+     * @return a new cursor over the positions of the word
+     * @throws IndexOutOfBoundsException
+     *         if no word has that id
+     */
+    public Cursor cursor(int id) {
+        if (id < 0 || id >= counts.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new Cursor(id);
+    }
+
+    /**
+     * Returns the number of occurrences of a word
+     * @param id the id of the word
+     * @return the number of positions of the word
+     * @throws IndexOutOfBoundsException
+     *         if no word has that id
+     */
+    public int frequency(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Returns the position of one occurrence of a word, decoding from the nearest skip entry
+     * @param id the id of the word
+     * @param n the index of the occurrence, 0 being the first
+     * @return the position of the occurrence in the token stream
+     * @throws IndexOutOfBoundsException
+     *         if the word does not occur that often
+     */
+    public int position(int id, int n) {
+        if (n < 0 || n >= frequency(id)) {
+            throw new IndexOutOfBoundsException();
+        }
+        Cursor cursor = new Cursor(id);
+        if (n >= SKIP) {
+            int skip = skipStart[id] + n / SKIP - 1;
+            cursor.read = n / SKIP * SKIP;
+            cursor.position = skipPositions[skip];
+            cursor.offset = skipOffsets[skip];
+        }
+        int position = cursor.next();
+        while (cursor.read <= n) {
+            position = cursor.next();
+        }
+        return position;
+    }
+
+    /**
+     * Counts the places the words occur one after another in the given order. The rarest word is
+     * read in full and every other word's cursor skips ahead to where it would have to be
+     * @param ids the ids of the words of the phrase
+     * @return the number of occurrences of the phrase
+     * @throws IllegalArgumentException
+     *         if no ids are given
+     * @throws IndexOutOfBoundsException
+     *         if no word has one of the ids
+     */
+    public int phraseCount(int... ids) {
+        if (ids.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        int rarest = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (frequency(ids[i]) < frequency(ids[rarest])) {
+                rarest = i;
+            }
+        }
+        Cursor[] cursors = new Cursor[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            cursors[i] = cursor(ids[i]);
+        }
+        int found = 0;
+        Cursor lead = cursors[rarest];
+        while (lead.hasNext()) {
+            /** the phrase would start here if the rarest word is in its place */
+            int first = lead.next() - rarest;
+            boolean match = first >= 0;
+            for (int i = 0; i < ids.length && match; i++) {
+                if (i != rarest) {
+                    match = cursors[i].advance(first + i) == first + i;
+                }
+            }
+            if (match) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of distinct word ids
+     * @return the vocabulary size
+     */
+    public int vocabulary() {
+        return counts.length;
+    }
+
+    /**
+     * Returns the number of positions in the index
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the index uses, not counting object headers
+     * @return the size of the index in bytes
+     */
+    public long memory() {
+        return data.length + 4L * (counts.length + start.length + skipStart.length
+                + skipPositions.length + skipOffsets.length);
+    }
+}
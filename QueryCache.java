@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class that answers repeated WordStat queries from a bounded cache. Results are kept per
+ * query and word regardless of k, so a query for fewer words than a cached one is answered
+ * from the start of the cached result. The least recently used results are evicted first, and
+ * everything is dropped once words are added to the WordStat
+ * @author Shravani Suram
+ */
+public class QueryCache {
+    /** stores the statistics queries are answered from */
+    private WordStat stat;
+    /** stores the cached results by query and word, least recently used first */
+    private LinkedHashMap<String, String[]> results;
+    /** stores the version of the statistics the cached results belong to */
+    private long version;
+    /** stores the number of queries answered from the cache */
+    private long hits = 0;
+    /** stores the number of queries passed on to the statistics */
+    private long misses = 0;
+    /** stores the number of results evicted to stay within capacity */
+    private long evictions = 0;
+
+    /**
+     * Creates a QueryCache
+     * @param stat the statistics to answer queries from
+     * @param capacity the number of results kept
+     * @throws IllegalArgumentException
+     *         if capacity is not positive
+     */
+    public QueryCache(WordStat stat, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.stat = stat;
+        this.version = stat.version();
+        this.results = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns k words with the highest frequencies, as WordStat.mostCommonWords does
+     * @param k the number of words to return
+     * @return k words with the highest frequencies
+     */
+    public synchronized String[] mostCommonWords(int k) {
+        String key = "mostCommonWords";
+        String[] cached = lookup(key, k);
+        return cached != null ? cached : store(key, stat.mostCommonWords(k));
+    }
+
+    /**
+     * Returns k words with the lowest frequencies, as WordStat.leastCommonWords does
+     * @param k the number of words to return
+     * @return k words with the lowest frequencies
+     */
+    public synchronized String[] leastCommonWords(int k) {
+        String key = "leastCommonWords";
+        String[] cached = lookup(key, k);
+        return cached != null ? cached : store(key, stat.leastCommonWords(k));
+    }
+
+    /**
+     * Returns k most frequent words before or after specified word, as
+     * WordStat.mostCommonCollocations does
+     * @param k the number of words to return in array
+     * @param baseWord the word from which words are returned before or after
+     * @param precede whether to return most frequent words before or after
+     * @return k most frequent words before or after base word
+     */
+    public synchronized String[] mostCommonCollocations(int k, String baseWord, boolean precede) {
+        /** the word goes last so no other query and word can give the same key */
+        String key = "mostCommonCollocations:" + precede + ":" + baseWord;
+        String[] cached = lookup(key, k);
+        return cached != null ? cached : store(key, stat.mostCommonCollocations(k, baseWord, precede));
+    }
+
+    /**
+     * Returns the first k words of a cached result, dropping every result if the statistics changed
+     * @param key the query and word
+     * @param k the number of words wanted
+     * @return a copy of the first k words, or null if no result of at least k words is cached
+     */
+    private String[] lookup(String key, int k) {
+        if (stat.version() != version) {
+            results.clear();
+            version = stat.version();
+        }
+        String[] cached = k >= 0 ? results.get(key) : null;
+        if (cached != null && cached.length >= k) {
+            hits++;
+            return Arrays.copyOf(cached, k);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Caches a result computed by the statistics
+     * @param key the query and word
+     * @param result the words returned by the statistics
+     * @return a copy of the result
+     */
+    private String[] store(String key, String[] result) {
+        results.put(key, result);
+        return result.clone();
+    }
+
+    /**
+     * Drops every cached result
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Returns the number of queries answered from the cache
+     * @return the hit count
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries passed on to the statistics
+     * @return the miss count
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results evicted to stay within capacity
+     * @return the eviction count
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of queries answered from the cache
+     * @return the hit rate, or 0 if nothing was asked
+     */
+    public synchronized double hitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * Returns the number of results cached
+     * @return the number of results
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+}
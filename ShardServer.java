@@ -0,0 +1,107 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * A class that serves one WordShard over TCP, so shards can run in other processes or on other
+ * machines and be reached with a SocketShardTransport. Every request and response is sent as
+ * its length followed by its bytes, and every connection is served by a thread of its own
+ * @author Shravani Suram
+ */
+public class ShardServer implements Closeable {
+    /** stores the shard being served */
+    private WordShard shard;
+    /** stores the socket accepting connections */
+    private ServerSocket server;
+
+    /**
+     * Creates a ShardServer and starts accepting connections
+     * @param shard the shard to serve
+     * @param address the address to listen on, with port 0 picking a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public ShardServer(WordShard shard, InetSocketAddress address) throws IOException {
+        this.shard = shard;
+        this.server = new ServerSocket();
+        server.bind(address);
+        Thread acceptor = new Thread(this::accept, "ShardServer " + server.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Creates a ShardServer for a new, empty shard listening on a free port of the loopback address
+     * @param index the index of the shard
+     * @param shards the number of shards
+     * @return the running server
+     * @throws IOException if no port can be bound
+     */
+    public static ShardServer loopback(int index, int shards) throws IOException {
+        return new ShardServer(new WordShard(index, shards), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Returns the address the server listens on
+     * @return the address and port to connect to
+     */
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    private void accept() {
+        while (server.isClosed() == false) {
+            try {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> serve(socket), "ShardServer connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                /** accept fails once the server is closed, which ends the loop */
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until it is closed
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            while (true) {
+                byte[] request = new byte[in.readInt()];
+                in.readFully(request);
+                byte[] response = shard.handle(request);
+                out.writeInt(response.length);
+                out.write(response);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            /** the client closed the connection */
+        } catch (IOException e) {
+            /** the connection broke; the client sees the failure on its side */
+        }
+    }
+
+    /**
+     * Stops accepting connections
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
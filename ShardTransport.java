@@ -0,0 +1,25 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An interface for carrying requests from a ShardedWordStat to its shards and their responses
+ * back, so the shards can live in the same process or on other machines
+ * @author Shravani Suram
+ */
+public interface ShardTransport extends Closeable {
+    /**
+     * Returns the number of shards reached through this transport
+     * @return the number of shards
+     */
+    int shards();
+
+    /**
+     * Sends a request to one shard and waits for its response; requests to different shards
+     * may be sent from different threads at the same time
+     * @param shard the index of the shard
+     * @param request the encoded request
+     * @return the encoded response
+     * @throws IOException if the shard cannot be reached
+     */
+    byte[] call(int shard, byte[] request) throws IOException;
+}
@@ -0,0 +1,323 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A class that calculates statistics for a set of words split between shards by hash code, so
+ * the vocabulary does not have to fit in one heap and counting can use several machines. Each
+ * shard counts only its own words; ranks are computed from the sum of the shards' frequency
+ * histograms, and the most common words from the most common words of every shard. The order of
+ * the words is not kept, so words of equal frequency are ordered alphabetically
+ * @author Shravani Suram
+ */
+public class ShardedWordStat implements Closeable {
+    /** Number of words sent to a shard in one request when adding text */
+    private static final int BATCH = 8192;
+
+    /** stores how the shards are reached */
+    private ShardTransport transport;
+    /** stores the threads calling the shards in parallel */
+    private ExecutorService pool;
+    /** stores how many words of every shard have each frequency, or null until a rank is asked for */
+    private FrequencyHistogram histogram;
+
+    /**
+     * Creates a ShardedWordStat over the shards reached through the transport
+     * @param transport how the shards are reached
+     */
+    public ShardedWordStat(ShardTransport transport) {
+        this.transport = transport;
+        this.pool = Executors.newFixedThreadPool(transport.shards(), runnable -> {
+            Thread thread = new Thread(runnable, "ShardedWordStat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Normalizes the text and sends every word to the shard it belongs to, in batches
+     * @param text the set of Strings containing the text to be added
+     * @throws UncheckedIOException if a shard cannot be reached
+     */
+    public void addText(String[] text) {
+        int shards = transport.shards();
+        ArrayList<ArrayList<String>> batches = new ArrayList<ArrayList<String>>(shards);
+        for (int i = 0; i < shards; i++) {
+            batches.add(new ArrayList<String>());
+        }
+        histogram = null;
+        try {
+            IOException[] failure = new IOException[1];
+            Tokenizer.stream(text, (buf, off, len) -> {
+                int shard = WordShard.owner(buf, off, len, shards);
+                ArrayList<String> batch = batches.get(shard);
+                batch.add(new String(buf, off, len));
+                if (batch.size() == BATCH && failure[0] == null) {
+                    try {
+                        send(shard, batch);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            for (int shard = 0; shard < shards; shard++) {
+                send(shard, batches.get(shard));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends a batch of words to a shard and empties the batch
+     * @param shard the index of the shard
+     * @param batch the normalized words of that shard
+     * @throws IOException if the shard cannot be reached or fails
+     */
+    private void send(int shard, ArrayList<String> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(WordShard.ADD);
+        out.writeInt(batch.size());
+        for (String word : batch) {
+            out.writeUTF(word);
+        }
+        response(transport.call(shard, bytes.toByteArray()));
+        batch.clear();
+    }
+
+    /**
+     * Has every shard read the file and count its own words; the file must be readable at the
+     * same path wherever the shards run
+     * @param file the file containing the text to be added
+     * @throws IOException if a shard cannot be reached or cannot read the file
+     */
+    public void addFile(String file) throws IOException {
+        histogram = null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(WordShard.ADD_FILE);
+        out.writeUTF(file);
+        out.writeUTF(Charset.defaultCharset().name());
+        all(bytes.toByteArray());
+    }
+
+    /**
+     * Counts the number of times a word appears in the text
+     * @param word the normalized word
+     * @return the frequency of the word
+     * @throws NoSuchElementException
+     *         if the word is not in the text
+     * @throws UncheckedIOException if the shard cannot be reached
+     */
+    public int wordCount(String word) {
+        int count = count(word);
+        if (count == 0) {
+            throw new NoSuchElementException();
+        }
+        return count;
+    }
+
+    /**
+     * Asks the shard of a word for its count
+     * @param word the normalized word
+     * @return the frequency of the word, or 0 if it is not in the text
+     * @throws UncheckedIOException if the shard cannot be reached
+     */
+    private int count(String word) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(WordShard.COUNT);
+            out.writeUTF(word);
+            return response(transport.call(WordShard.owner(word, transport.shards()), bytes.toByteArray())).readInt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the rank of the word based on its frequency relative to every word of every shard.
+     * The shards' histograms are merged on the first call after words are added, so later calls
+     * only ask the shard of the word for its count
+     * @param word the normalized word
+     * @return the rank of the word or 0 if it is not in the text
+     * @throws UncheckedIOException if a shard cannot be reached
+     */
+    public int wordRank(String word) {
+        int count = count(word);
+        if (count == 0) {
+            return 0;
+        }
+        if (histogram == null) {
+            try {
+                DataInputStream[] responses = all(new byte[] {WordShard.HISTOGRAM});
+                FrequencyHistogram[] parts = new FrequencyHistogram[responses.length];
+                for (int shard = 0; shard < responses.length; shard++) {
+                    int length = responses[shard].readInt();
+                    int[] frequencies = new int[length];
+                    int[] words = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        frequencies[i] = responses[shard].readInt();
+                        words[i] = responses[shard].readInt();
+                    }
+                    parts[shard] = new FrequencyHistogram(frequencies, words, length);
+                }
+                histogram = new FrequencyHistogram(parts);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return histogram.rank(count);
+    }
+
+    /**
+     * Returns k words with the highest frequencies. Every shard returns its own k most common
+     * words, and since each word is on one shard, the k most common of those are the answer
+     * @param k the number of words to return
+     * @return k words with the highest frequencies, words of equal frequency alphabetically
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of distinct words
+     * @throws UncheckedIOException if a shard cannot be reached
+     */
+    public String[] mostCommonWords(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k > size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(WordShard.TOP);
+            out.writeInt(k);
+            ArrayList<String> words = new ArrayList<String>();
+            ArrayList<Integer> counts = new ArrayList<Integer>();
+            for (DataInputStream in : all(bytes.toByteArray())) {
+                for (int n = in.readInt(); n > 0; n--) {
+                    words.add(in.readUTF());
+                    counts.add(in.readInt());
+                }
+            }
+            Integer[] order = new Integer[words.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> counts.get(a).equals(counts.get(b))
+                    ? words.get(a).compareTo(words.get(b)) : Integer.compare(counts.get(b), counts.get(a)));
+            String[] result = new String[k];
+            for (int i = 0; i < k; i++) {
+                result[i] = words.get(order[i]);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of distinct normalized words of every shard
+     * @return the number of distinct words
+     * @throws UncheckedIOException if a shard cannot be reached
+     */
+    public int size() {
+        int size = 0;
+        try {
+            for (DataInputStream in : all(new byte[] {WordShard.SIZE})) {
+                size += in.readInt();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of words counted by every shard
+     * @return the number of words in the text
+     * @throws UncheckedIOException if a shard cannot be reached
+     */
+    public long tokens() {
+        long tokens = 0;
+        try {
+            for (DataInputStream in : all(new byte[] {WordShard.SIZE})) {
+                in.readInt();
+                tokens += in.readLong();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    /**
+     * Sends the same request to every shard in parallel
+     * @param request the encoded request
+     * @return the response of every shard, past its status, in shard order
+     * @throws IOException if a shard cannot be reached or fails
+     */
+    private DataInputStream[] all(byte[] request) throws IOException {
+        ArrayList<Future<byte[]>> calls = new ArrayList<Future<byte[]>>();
+        for (int shard = 0; shard < transport.shards(); shard++) {
+            int index = shard;
+            calls.add(pool.submit(() -> transport.call(index, request)));
+        }
+        DataInputStream[] responses = new DataInputStream[calls.size()];
+        for (int shard = 0; shard < responses.length; shard++) {
+            try {
+                responses[shard] = response(calls.get(shard).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Reads the status of a response
+     * @param response the encoded response
+     * @return the rest of the response
+     * @throws IOException if the shard failed to answer the request
+     */
+    private static DataInputStream response(byte[] response) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response));
+        if (in.readByte() != WordShard.OK) {
+            throw new IOException(in.readUTF());
+        }
+        return in;
+    }
+
+    /**
+     * Stops the threads calling the shards and closes the transport
+     * @throws IOException if the transport cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        pool.shutdown();
+        transport.close();
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * A class that reaches shards served by ShardServers over TCP, keeping one connection to each
+ * shard that is opened on the first request and reused for every later one
+ * @author Shravani Suram
+ */
+public class SocketShardTransport implements ShardTransport {
+    /** stores the address of every shard */
+    private InetSocketAddress[] addresses;
+    /** stores the lock guarding the connection to every shard */
+    private Object[] locks;
+    /** stores the connection to every shard, or null until it is opened */
+    private Socket[] sockets;
+    /** stores the stream requests are written to for every shard */
+    private DataOutputStream[] outs;
+    /** stores the stream responses are read from for every shard */
+    private DataInputStream[] ins;
+
+    /**
+     * Creates a SocketShardTransport
+     * @param addresses the address of every shard, in shard order
+     * @throws IllegalArgumentException
+     *         if no addresses are given
+     */
+    public SocketShardTransport(List<InetSocketAddress> addresses) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        this.addresses = addresses.toArray(new InetSocketAddress[0]);
+        this.locks = new Object[this.addresses.length];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.sockets = new Socket[this.addresses.length];
+        this.outs = new DataOutputStream[this.addresses.length];
+        this.ins = new DataInputStream[this.addresses.length];
+    }
+
+    @Override
+    public int shards() {
+        return addresses.length;
+    }
+
+    @Override
+    public byte[] call(int shard, byte[] request) throws IOException {
+        /** one request at a time per connection, but different shards are called in parallel */
+        synchronized (locks[shard]) {
+            if (sockets[shard] == null) {
+                Socket socket = new Socket();
+                socket.connect(addresses[shard]);
+                socket.setTcpNoDelay(true);
+                sockets[shard] = socket;
+                outs[shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                ins[shard] = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            }
+            try {
+                outs[shard].writeInt(request.length);
+                outs[shard].write(request);
+                outs[shard].flush();
+                byte[] response = new byte[ins[shard].readInt()];
+                ins[shard].readFully(response);
+                return response;
+            } catch (IOException e) {
+                /** a broken connection is reopened by the next request */
+                disconnect(shard);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Closes the connection to one shard
+     * @param shard the index of the shard
+     */
+    private void disconnect(int shard) {
+        try {
+            if (sockets[shard] != null) {
+                sockets[shard].close();
+            }
+        } catch (IOException e) {
+            /** the connection is dropped either way */
+        }
+        sockets[shard] = null;
+    }
+
+    /**
+     * Closes the connection to every shard
+     */
+    @Override
+    public void close() {
+        for (int shard = 0; shard < addresses.length; shard++) {
+            synchronized (locks[shard]) {
+                disconnect(shard);
+            }
+        }
+    }
+}
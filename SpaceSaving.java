@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * A class that finds the most frequent String keys of a stream while tracking only a fixed
+ * number of them. When a new key arrives and every slot is taken, it replaces the tracked key
+ * with the smallest count and inherits that count as its possible overestimate, so any key
+ * occurring more than total / capacity times is always tracked
+ * @author Shravani Suram
+ */
+public class SpaceSaving {
+    /** stores the slot of every tracked key */
+    private HashTable<Integer> slots;
+    /** stores the key of each slot */
+    private String[] keys;
+    /** stores the count of each slot, which may overestimate the key's true count */
+    private long[] counts;
+    /** stores the most each slot's count may overestimate its key's true count */
+    private long[] errors;
+    /** stores the slots as a min-heap ordered by count */
+    private int[] heap;
+    /** stores the index in heap of every slot */
+    private int[] position;
+    /** stores the number of slots in use */
+    private int size = 0;
+
+    /**
+     * Creates a SpaceSaving
+     * @param capacity the number of keys tracked
+     * @throws IllegalArgumentException
+     *         if capacity is not positive
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        slots = new HashTable<Integer>(capacity * 2);
+        keys = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        position = new int[capacity];
+    }
+
+    /**
+     * Adds one occurrence of the key
+     * @param key the key that will be added
+     */
+    public void add(String key) {
+        Integer slot = slots.getOrDefault(key, null);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(position[slot]);
+            return;
+        }
+        if (size < keys.length) {
+            slot = size++;
+            keys[slot] = key;
+            counts[slot] = 1;
+            errors[slot] = 0;
+            slots.put(key, slot);
+            siftUp(slot);
+            return;
+        }
+        /** the key takes over the slot with the smallest count */
+        slot = heap[0];
+        slots.remove(keys[slot]);
+        errors[slot] = counts[slot];
+        keys[slot] = key;
+        counts[slot]++;
+        slots.put(key, slot);
+        siftDown(position[slot]);
+    }
+
+    /**
+     * Moves a new slot up the heap until its parent is not larger
+     * @param index the index of the slot in heap
+     */
+    private void siftUp(int index) {
+        int slot = index;
+        while (index > 0 && counts[heap[(index - 1) / 2]] > counts[slot]) {
+            heap[index] = heap[(index - 1) / 2];
+            position[heap[index]] = index;
+            index = (index - 1) / 2;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    /**
+     * Moves a slot whose count grew down the heap until its children are not smaller
+     * @param index the index of the slot in heap
+     */
+    private void siftDown(int index) {
+        int slot = heap[index];
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[slot]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    /**
+     * Returns the tracked count of the key, which is at least its true count
+     * @param key the key that is to be found
+     * @return the count of the key or -1 if it is not tracked
+     */
+    public long count(String key) {
+        Integer slot = slots.getOrDefault(key, null);
+        return slot == null ? -1 : counts[slot];
+    }
+
+    /**
+     * Returns the most the tracked count of the key may exceed its true count
+     * @param key the key that is to be found
+     * @return the possible overestimate of the key or -1 if it is not tracked
+     */
+    public long error(String key) {
+        Integer slot = slots.getOrDefault(key, null);
+        return slot == null ? -1 : errors[slot];
+    }
+
+    /**
+     * Returns the k tracked keys with the highest counts
+     * @param k the number of keys to return
+     * @return k keys by descending count, keys of equal count in alphabetical order
+     * @throws IllegalArgumentException
+     *         if k is negative
+     * @throws IndexOutOfBoundsException
+     *         if k is larger than the number of tracked keys
+     */
+    public String[] top(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : keys[a].compareTo(keys[b]));
+        String[] top = new String[k];
+        for (int i = 0; i < k; i++) {
+            top[i] = keys[order[i]];
+        }
+        return top;
+    }
+
+    /**
+     * Returns the number of keys tracked
+     * @return the number of tracked keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the largest number of keys tracked
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,314 @@
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * A class that decides how text is split into normalized words. Letters and digits are kept and
+ * case folded, separators end words, joiners are kept only between two kept characters, and
+ * everything else is dropped without ending the word. The class and folded form of every BMP
+ * character are looked up in tables built once, so the common case costs two array reads per
+ * character; only supplementary code points and, when NFKC is on, non-ASCII words take the
+ * slower path
+ * @author Shravani Suram
+ */
+public class TextNormalizer {
+    /**
+     * nested enum representing how the case of kept characters is changed
+     */
+    public enum Case {
+        /** characters keep their case */
+        PRESERVE,
+        /** uppercase characters are lowercased, as the Tokenizer always did */
+        LOWER,
+        /** characters are mapped to their simple case folding, so for example final sigma matches sigma */
+        FOLD
+    }
+
+    /** Normalizer keeping letters and digits, lowercased, split on spaces, tabs and line breaks */
+    public static final TextNormalizer DEFAULT = new TextNormalizer(false, Case.LOWER, " \n\t\r", "");
+
+    /** class of characters that are dropped from words */
+    private static final byte DROP = 0;
+    /** class of characters that are kept in words */
+    private static final byte WORD = 1;
+    /** class of characters that end words */
+    private static final byte SEPARATOR = 2;
+    /** class of characters that are kept only between two kept characters */
+    private static final byte JOINER = 3;
+    /** class of high surrogates, which are classified with the character after them */
+    private static final byte SURROGATE = 4;
+    /** class of characters that may change under NFKC, which are kept until the word ends */
+    private static final byte RAW = 5;
+
+    /** stores whether words are brought to NFKC before they are classified */
+    private boolean nfkc;
+    /** stores how the case of kept characters is changed */
+    private Case fold;
+    /** stores the code points that end words, sorted */
+    private int[] separators;
+    /** stores the code points kept only between two kept characters, sorted */
+    private int[] joiners;
+    /** stores the class of every BMP character */
+    private byte[] classes = new byte[65536];
+    /** stores the folded form of every BMP character */
+    private char[] folded = new char[65536];
+
+    /**
+     * Creates a TextNormalizer
+     * @param nfkc whether text is brought to Unicode NFKC, so compatibility forms such as
+     *        full-width letters and ligatures match their plain forms
+     * @param fold how the case of kept characters is changed, the same in every locale
+     * @param separators the characters that end words
+     * @param joiners the characters kept inside words, such as the apostrophe in "don't",
+     *        which are dropped at the start or end of a word; separators take precedence
+     * @throws NullPointerException
+     *         if fold, separators or joiners is null
+     */
+    public TextNormalizer(boolean nfkc, Case fold, String separators, String joiners) {
+        if (fold == null) {
+            throw new NullPointerException();
+        }
+        this.nfkc = nfkc;
+        this.fold = fold;
+        this.separators = separators.codePoints().sorted().distinct().toArray();
+        this.joiners = joiners.codePoints().sorted().distinct().toArray();
+        for (int c = 0; c < 65536; c++) {
+            folded[c] = (char) c;
+            if (Character.isHighSurrogate((char) c) == true) {
+                classes[c] = SURROGATE;
+                continue;
+            }
+            classes[c] = classify(c, nfkc);
+            int f = fold(c);
+            if (f < 65536) {
+                folded[c] = (char) f;
+            }
+        }
+    }
+
+    /**
+     * Returns the class of a code point
+     * @param cp the code point
+     * @param raw whether characters that may change under NFKC are kept until the word ends
+     * @return the class of the code point
+     */
+    private byte classify(int cp, boolean raw) {
+        if (Arrays.binarySearch(separators, cp) >= 0) {
+            return SEPARATOR;
+        }
+        if (Arrays.binarySearch(joiners, cp) >= 0) {
+            return JOINER;
+        }
+        if (raw == true && cp >= 128) {
+            /** a character whose compatibility form is only separators, like an ideographic space, is a separator */
+            String form = Normalizer.normalize(new String(Character.toChars(cp)), Normalizer.Form.NFKC);
+            if (form.isEmpty() == false && form.codePoints().allMatch(s -> Arrays.binarySearch(separators, s) >= 0)) {
+                return SEPARATOR;
+            }
+            return RAW;
+        }
+        if (Character.isLetter(cp) == true || Character.isDigit(cp) == true) {
+            return WORD;
+        }
+        return DROP;
+    }
+
+    /**
+     * Returns the case folded form of a code point
+     * @param cp the code point
+     * @return the code point with its case changed
+     */
+    private int fold(int cp) {
+        switch (fold) {
+            case LOWER:
+                return Character.isUpperCase(cp) == true ? Character.toLowerCase(cp) : cp;
+            case FOLD:
+                return Character.toLowerCase(Character.toUpperCase(cp));
+            default:
+                return cp;
+        }
+    }
+
+    /**
+     * Returns whether words are brought to NFKC
+     * @return true if NFKC is applied
+     */
+    public boolean isNfkc() {
+        return nfkc;
+    }
+
+    /**
+     * Returns how the case of kept characters is changed
+     * @return the case folding
+     */
+    public Case getCase() {
+        return fold;
+    }
+
+    /**
+     * Starts splitting a stream of text into words
+     * @param sink receives every normalized word in order
+     * @return the state of the stream
+     */
+    public Words words(TokenSink sink) {
+        return new Words(sink);
+    }
+
+    /**
+     * nested class representing the state of one stream of text being split into words, which
+     * may arrive in pieces that end in the middle of a word or of a surrogate pair
+     */
+    public class Words {
+        /** stores the characters of the word being read */
+        private char[] word = new char[32];
+        /** stores the number of characters in word */
+        private int length = 0;
+        /** stores the joiner seen after the last kept character, or -1 if there is none */
+        private int joiner = -1;
+        /** stores a high surrogate that ended the last piece, or 0 if there is none */
+        private char high = 0;
+        /** stores whether word holds characters that must be brought to NFKC when it ends */
+        private boolean raw = false;
+        /** receives every normalized word */
+        private TokenSink sink;
+
+        /**
+         * Creates the state of a stream
+         * @param sink receives every normalized word in order
+         */
+        private Words(TokenSink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Splits a piece of text, handing every word that ends in it to the sink
+         * @param buf the buffer holding the text
+         * @param off the index of the first character
+         * @param end the index after the last character
+         */
+        public void feed(char[] buf, int off, int end) {
+            /** the word is kept in locals while only kept characters and separators are seen */
+            char[] chars = word;
+            int n = length;
+            boolean plain = joiner < 0 && high == 0 && raw == false;
+            for (int i = off; i < end; i++) {
+                char c = buf[i];
+                byte type = classes[c];
+                if (type == WORD && plain == true) {
+                    if (n == chars.length) {
+                        chars = Arrays.copyOf(chars, n * 2);
+                    }
+                    chars[n++] = folded[c];
+                } else if (type == SEPARATOR && plain == true) {
+                    if (n != 0) {
+                        sink.accept(chars, 0, n);
+                        n = 0;
+                    }
+                } else {
+                    word = chars;
+                    length = n;
+                    slow(c, type);
+                    chars = word;
+                    n = length;
+                    plain = joiner < 0 && high == 0 && raw == false;
+                }
+            }
+            word = chars;
+            length = n;
+        }
+
+        /**
+         * Handles a character that is not simply kept or a separator
+         * @param c the character
+         * @param type the class of the character
+         */
+        private void slow(char c, byte type) {
+            if (high != 0) {
+                char first = high;
+                high = 0;
+                if (Character.isLowSurrogate(c) == true) {
+                    int cp = Character.toCodePoint(first, c);
+                    accept(cp, classify(cp, nfkc));
+                    return;
+                }
+                /** an unpaired high surrogate is dropped */
+                accept(first, DROP);
+            }
+            if (type == SURROGATE) {
+                high = c;
+            } else {
+                accept(c, type);
+            }
+        }
+
+        /**
+         * Adds a code point to the word, ends the word or drops the code point
+         * @param cp the code point
+         * @param type the class of the code point
+         */
+        private void accept(int cp, byte type) {
+            switch (type) {
+                case WORD:
+                    if (joiner >= 0) {
+                        append(joiner);
+                        joiner = -1;
+                    }
+                    append(cp < 65536 ? folded[cp] : fold(cp));
+                    break;
+                case RAW:
+                    if (joiner >= 0) {
+                        append(joiner);
+                        joiner = -1;
+                    }
+                    append(cp);
+                    raw = true;
+                    break;
+                case SEPARATOR:
+                    finish();
+                    break;
+                case JOINER:
+                    /** a joiner is kept only once a kept character follows it, and two in a row join nothing */
+                    joiner = length > 0 && joiner < 0 ? cp : -1;
+                    break;
+                default:
+                    joiner = -1;
+                    break;
+            }
+        }
+
+        /**
+         * Adds a code point to the word
+         * @param cp the code point
+         */
+        private void append(int cp) {
+            if (length + 2 > word.length) {
+                word = Arrays.copyOf(word, word.length * 2);
+            }
+            length += Character.toChars(cp, word, length);
+        }
+
+        /**
+         * Ends the current word, handing it to the sink if it is not empty
+         */
+        public void finish() {
+            /** a joiner or an unpaired high surrogate at the end of a word is dropped */
+            high = 0;
+            joiner = -1;
+            if (raw == true) {
+                raw = false;
+                /** brings the word to NFKC and splits it again, since its form may hold separators or marks */
+                String form = Normalizer.normalize(new String(word, 0, length), Normalizer.Form.NFKC);
+                length = 0;
+                for (int i = 0; i < form.length(); ) {
+                    int cp = form.codePointAt(i);
+                    accept(cp, classify(cp, false));
+                    i += Character.charCount(cp);
+                }
+                joiner = -1;
+            }
+            if (length != 0) {
+                sink.accept(word, 0, length);
+                length = 0;
+            }
+        }
+    }
+}
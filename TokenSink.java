@@ -0,0 +1,15 @@
+/**
+ * An interface that receives normalized words as views of a character buffer, so a tokenizer
+ * does not have to create a String for every word it reads
+ * @author Shravani Suram
+ */
+public interface TokenSink {
+    /**
+     * Receives one normalized word. The buffer is reused by the tokenizer, so the characters
+     * are only valid until this returns and must be copied to be kept
+     * @param buf the buffer holding the word
+     * @param off the index of the first character of the word
+     * @param len the number of characters in the word, never 0
+     */
+    void accept(char[] buf, int off, int len);
+}
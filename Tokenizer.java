@@ -1,8 +1,11 @@
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.util.function.Consumer;
 
 /**
  * A class representing a Tokenizer that normalizes inputted text
@@ -18,40 +21,11 @@ public class Tokenizer {
      */
     public Tokenizer(String file) {
         list = new ArrayList<String>();
-        boolean slash = false;
-        FileReader filereader;
-        BufferedReader reader;
         try {
-            filereader = new FileReader(file);
-            reader = new BufferedReader(filereader);
-            /** stores each normalized word and adds to list */
-            StringBuilder builder = new StringBuilder();
-            while (reader.ready()) {
-                /** stores character to be read */
-                char c = (char) reader.read();
-                /** checks if character is a alphanumeric letter or digit */
-                if (Character.isLetter(c) == true || Character.isDigit(c) == true) {
-                    /** if letter is uppercase, will make lowercase */
-                    if (Character.isUpperCase(c) == true) {
-                        c = Character.toLowerCase(c);
-                    }
-                    builder.append(c);
-                }
-                /** if character is a space, then add word to ArrayList */
-                else if (c == ' ' || c == '\n' || c == '\t' || c == '\r') {
-                    if (builder.toString().length() != 0) {
-                        this.list.add(builder.toString());
-                        builder = new StringBuilder();
-                    }
-                }
-            }
-            /** checks and adds last word of text to list */
-            if (builder.toString().length() != 0) {
-                this.list.add(builder.toString());
-            }
+            stream(file, Charset.defaultCharset(), list::add);
         }
 
-        catch(FileNotFoundException e){
+        catch(NoSuchFileException e){
                 System.out.println("FileNotFoundException");
         }
         catch(IOException b){
@@ -59,46 +33,102 @@ public class Tokenizer {
         }
      }
 
+    /**
+     * Normalizes the words of a file in large chunks and hands each word to the consumer
+     * as soon as it is read, without keeping a list of the words
+     * @param file the text file with the words to be normalized
+     * @param charset the charset the file is encoded in
+     * @param consumer receives every normalized word in order
+     * @throws IOException if the file cannot be read
+     */
+    public static void stream(String file, Charset charset, Consumer<String> consumer) throws IOException {
+        stream(file, charset, (buf, off, len) -> consumer.accept(new String(buf, off, len)));
+    }
+
+    /**
+     * Normalizes the words of a file in large chunks and hands each word to the sink as a view
+     * of a reused buffer, without creating a String for it
+     * @param file the text file with the words to be normalized
+     * @param charset the charset the file is encoded in
+     * @param sink receives every normalized word in order
+     * @throws IOException if the file cannot be read
+     */
+    public static void stream(String file, Charset charset, TokenSink sink) throws IOException {
+        stream(file, charset, TextNormalizer.DEFAULT, sink);
+    }
+
+    /**
+     * Splits a file into words as the normalizer decides, reading it in large chunks and handing
+     * each word to the sink as a view of a reused buffer
+     * @param file the text file with the words to be normalized
+     * @param charset the charset the file is encoded in
+     * @param normalizer decides which characters are kept, how they are folded and where words end
+     * @param sink receives every normalized word in order
+     * @throws IOException if the file cannot be read
+     */
+    public static void stream(String file, Charset charset, TextNormalizer normalizer, TokenSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            /** a small file gets buffers of its own size rather than a full chunk */
+            int chunkSize = (int) Math.max(16, Math.min(channel.size(), ChunkedTokenizer.DEFAULT_CHUNK_SIZE));
+            ChunkedTokenizer tokenizer = new ChunkedTokenizer(charset, chunkSize, normalizer, sink);
+            tokenizer.read(channel);
+            tokenizer.finish();
+        }
+    }
+
     /**
      * Creates a list of all the normalized words from the inputted String array
      * @param text the list of words to be normalized
      */
     public Tokenizer(String[] text) {
         list = new ArrayList<String>();
-        boolean slash = false;
-        /** stores each word in text inputted */
-        String input;
-        StringBuilder builder;
+        stream(text, list::add);
+    }
+
+    /**
+     * Normalizes the words of the inputted String array and hands each word to the consumer
+     * without keeping a list of the words
+     * @param text the list of words to be normalized
+     * @param consumer receives every normalized word in order
+     */
+    public static void stream(String[] text, Consumer<String> consumer) {
+        stream(text, (buf, off, len) -> consumer.accept(new String(buf, off, len)));
+    }
+
+    /**
+     * Normalizes the words of the inputted String array and hands each word to the sink as a
+     * view of a reused buffer, without creating a String for it
+     * @param text the list of words to be normalized
+     * @param sink receives every normalized word in order
+     */
+    public static void stream(String[] text, TokenSink sink) {
+        stream(text, TextNormalizer.DEFAULT, sink);
+    }
+
+    /**
+     * Splits the inputted String array into words as the normalizer decides and hands each word
+     * to the sink as a view of a reused buffer; no word spans two elements
+     * @param text the list of words to be normalized
+     * @param normalizer decides which characters are kept, how they are folded and where words end
+     * @param sink receives every normalized word in order
+     */
+    public static void stream(String[] text, TextNormalizer normalizer, TokenSink sink) {
+        TextNormalizer.Words words = normalizer.words(sink);
+        /** stores the characters of the element being read, reused for every element */
+        char[] chars = new char[256];
         /** Loops through each word in text file and normalizes */
         for (int i = 0; i < text.length; i++) {
-            /** stores each normalized word and adds to list */
-            builder = new StringBuilder();
-            if (text[i] != null)
-                input = text[i];
-            else
-                input = "";
-            /** Loops through each character of word inputted */
-            for (int j = 0; j < input.length(); j++) {
-                char c = input.charAt(j);
-                /** checks if alphanumeric character or digit to normalize */
-                if (Character.isLetter(c) == true || Character.isDigit(c) == true) {
-                    if (Character.isUpperCase(c) == true) {
-                        c = Character.toLowerCase(c);
-                    }
-                    builder.append(c);
-                }
-                /** if character is a space, then add word to ArrayList */
-                else if (c == ' ' || c == '\n' || c == '\t' || c == '\r') {
-                    if (builder.toString().length() != 0) {
-                        this.list.add(builder.toString());
-                        builder = new StringBuilder();
-                    }
-                }
+            if (text[i] == null) {
+                continue;
             }
-            /** checks last word and adds to list if normalized */
-            if (builder.toString().length() != 0) {
-                this.list.add(builder.toString());
+            String input = text[i];
+            if (input.length() > chars.length) {
+                chars = new char[Math.max(input.length(), chars.length * 2)];
             }
+            input.getChars(0, input.length(), chars, 0);
+            words.feed(chars, 0, input.length());
+            /** ends the last word of the element */
+            words.finish();
         }
     }
 
@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+/**
+ * A class that selects the ids with the highest or lowest counts using a bounded heap,
+ * without sorting every count, or a counting sort when most ids are wanted
+ * @author Shravani Suram
+ */
+public class TopK {
+    /**
+     * Returns the k ids with the highest counts, ordered by count and then by id, highest first
+     * @param counts the count of every id
+     * @param size the number of ids in counts
+     * @param k the number of ids to return
+     * @return the ids with the highest counts
+     * @throws IllegalArgumentException
+     *         if k is negative or larger than size
+     */
+    public static int[] largest(int[] counts, int size, int k) {
+        return select(counts, size, k, false);
+    }
+
+    /**
+     * Returns the k ids with the lowest counts, ordered by count and then by id, lowest first
+     * @param counts the count of every id
+     * @param size the number of ids in counts
+     * @param k the number of ids to return
+     * @return the ids with the lowest counts
+     * @throws IllegalArgumentException
+     *         if k is negative or larger than size
+     */
+    public static int[] smallest(int[] counts, int size, int k) {
+        return select(counts, size, k, true);
+    }
+
+    /**
+     * Keeps the k best (count, id) keys in a heap whose root is the worst key kept
+     * @param counts the count of every id
+     * @param size the number of ids in counts
+     * @param k the number of ids to return
+     * @param lowest whether the lowest rather than the highest counts are wanted
+     * @return the selected ids, best first
+     */
+    private static int[] select(int[] counts, int size, int k, boolean lowest) {
+        if (k < 0 || k > size) {
+            throw new IllegalArgumentException();
+        }
+        int[] result = new int[k];
+        if (k == 0) {
+            return result;
+        }
+        if (k >= size / 16) {
+            int min = 0;
+            int max = 0;
+            for (int id = 0; id < size; id++) {
+                min = Math.min(min, counts[id]);
+                max = Math.max(max, counts[id]);
+            }
+            /** counts are bounded by the number of tokens, so usually by a small multiple of size */
+            if (min >= 0 && max <= 4L * size + 1024) {
+                return countingSort(counts, size, k, max, lowest);
+            }
+        }
+        /** keys are (count, id) packed so comparing longs compares counts first; negated when lowest */
+        long[] heap = new long[k];
+        int length = 0;
+        for (int id = 0; id < size; id++) {
+            long key = ((long) counts[id] << 32) | id;
+            if (lowest) {
+                key = -key;
+            }
+            if (length < k) {
+                heap[length] = key;
+                up(heap, length++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                down(heap, length);
+            }
+        }
+        Arrays.sort(heap);
+        for (int i = 0; i < k; i++) {
+            long key = heap[k - 1 - i];
+            result[i] = (int) (lowest ? -key : key);
+        }
+        return result;
+    }
+
+    /**
+     * Orders the ids by count with one pass to count each count and one to place each id
+     * @param counts the count of every id
+     * @param size the number of ids in counts
+     * @param k the number of ids to return
+     * @param max the highest count
+     * @param lowest whether the lowest rather than the highest counts are wanted
+     * @return the selected ids, best first
+     */
+    private static int[] countingSort(int[] counts, int size, int k, int max, boolean lowest) {
+        /** stores for every count the first position of its ids in the sorted order */
+        int[] start = new int[max + 2];
+        for (int id = 0; id < size; id++) {
+            start[counts[id]]++;
+        }
+        int position = 0;
+        for (int i = 0; i <= max; i++) {
+            int count = lowest ? i : max - i;
+            int words = start[count];
+            start[count] = position;
+            position += words;
+        }
+        int[] sorted = new int[size];
+        /** ids of equal count are placed lowest id first when lowest and highest id first otherwise */
+        for (int i = 0; i < size; i++) {
+            int id = lowest ? i : size - 1 - i;
+            sorted[start[counts[id]]++] = id;
+        }
+        return k == size ? sorted : Arrays.copyOf(sorted, k);
+    }
+
+    /**
+     * Moves a key up the min-heap until its parent is smaller
+     * @param heap the heap
+     * @param index the index of the key
+     */
+    static void up(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    /**
+     * Moves the root of the min-heap down until its children are larger
+     * @param heap the heap
+     * @param length the number of keys in the heap
+     */
+    static void down(long[] heap, int length) {
+        long key = heap[0];
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < length) {
+            if (child + 1 < length && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
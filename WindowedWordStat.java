@@ -0,0 +1,238 @@
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A class that keeps word statistics of only the most recent part of a stream. The window is
+ * split into time slices kept in a ring, each counting the words that arrived in it; when a
+ * slice falls out of the window its counts are subtracted from the window totals, so expiring
+ * costs the number of distinct words of that slice and nothing is ever rebuilt
+ * @author Shravani Suram
+ */
+public class WindowedWordStat {
+    /** stores the counts of each slice of the window, indexed by slice number modulo the ring size */
+    private ArrayList<HashTable<Integer>> slices;
+    /** stores the count of every word in the window */
+    private HashTable<Integer> totals = new HashTable<Integer>();
+    /** stores the words of the window grouped by count */
+    private TreeMap<Integer, TreeSet<String>> byCount = new TreeMap<Integer, TreeSet<String>>();
+    /** stores how many words of the window have each count, for ranks */
+    private FrequencyHistogram histogram = new FrequencyHistogram(new int[0], 0);
+    /** stores the length of a slice in milliseconds */
+    private long sliceLength;
+    /** stores the number of the newest slice, which is its start time divided by sliceLength */
+    private long current = Long.MIN_VALUE;
+    /** stores the number of words in the window */
+    private long tokens = 0;
+
+    /**
+     * Creates a WindowedWordStat
+     * @param window the length of the window in milliseconds
+     * @param sliceCount the number of slices the window is split into; more slices expire
+     *                   words closer to their exact age but keep more tables
+     * @throws IllegalArgumentException
+     *         if sliceCount is not positive or window is shorter than sliceCount milliseconds
+     */
+    public WindowedWordStat(long window, int sliceCount) {
+        if (sliceCount <= 0 || window < sliceCount) {
+            throw new IllegalArgumentException();
+        }
+        sliceLength = window / sliceCount;
+        slices = new ArrayList<HashTable<Integer>>(sliceCount);
+        for (int i = 0; i < sliceCount; i++) {
+            slices.add(new HashTable<Integer>());
+        }
+    }
+
+    /**
+     * Normalizes the text and counts its words as arriving at the specified time
+     * @param text the text to add
+     * @param time the time the text arrived, in milliseconds
+     */
+    public void addText(String[] text, long time) {
+        advance(time);
+        Tokenizer.stream(text, word -> count(word));
+    }
+
+    /**
+     * Counts one normalized word as arriving at the specified time
+     * @param word the normalized word
+     * @param time the time the word arrived, in milliseconds; times before the newest slice
+     *             are counted in the newest slice
+     */
+    public void add(String word, long time) {
+        advance(time);
+        count(word);
+    }
+
+    /**
+     * Moves the window forward to the specified time, expiring the slices that fall out of it
+     * @param time the current time in milliseconds; times before the newest slice are ignored
+     */
+    public void advance(long time) {
+        long slice = Math.floorDiv(time, sliceLength);
+        if (current == Long.MIN_VALUE) {
+            current = slice;
+            return;
+        }
+        /** expires at most every slice once however long the stream was idle */
+        long steps = Math.min(slice - current, slices.size());
+        for (long i = 0; i < steps; i++) {
+            expire(ring(current + 1 + i));
+        }
+        current = Math.max(current, slice);
+    }
+
+    /**
+     * Returns the index in the ring of the specified slice
+     * @param slice the slice number
+     * @return the index of the slice's table
+     */
+    private int ring(long slice) {
+        return (int) Math.floorMod(slice, (long) slices.size());
+    }
+
+    /**
+     * Subtracts a slice's counts from the window and empties it
+     * @param index the index of the slice in the ring
+     */
+    private void expire(int index) {
+        String[] words = slices.get(index).getKeys();
+        int[] counts = slices.get(index).getCounts();
+        for (int i = 0; i < words.length; i++) {
+            int from = totals.get(words[i]);
+            int to = from - counts[i];
+            if (to == 0) {
+                totals.remove(words[i]);
+            } else {
+                totals.put(words[i], -counts[i]);
+            }
+            move(words[i], from, to);
+            histogram.decrease(from, to);
+            tokens -= counts[i];
+        }
+        /** a new table so the slice does not keep the capacity of a busy period */
+        slices.set(index, new HashTable<Integer>());
+    }
+
+    /**
+     * Adds a normalized word to the newest slice and the window totals
+     * @param word the normalized word
+     */
+    private void count(String word) {
+        slices.get(ring(current)).put(word, 1);
+        int from = totals.getOrDefault(word, 0);
+        totals.put(word, 1);
+        move(word, from, from + 1);
+        histogram.increase(from, from + 1);
+        tokens++;
+    }
+
+    /**
+     * Moves a word between the groups of words with equal counts
+     * @param word the word whose count changed
+     * @param from the old count, or 0 if the word is new to the window
+     * @param to the new count, or 0 if the word left the window
+     */
+    private void move(String word, int from, int to) {
+        if (from > 0) {
+            TreeSet<String> group = byCount.get(from);
+            group.remove(word);
+            if (group.isEmpty()) {
+                byCount.remove(from);
+            }
+        }
+        if (to > 0) {
+            byCount.computeIfAbsent(to, count -> new TreeSet<String>()).add(word);
+        }
+    }
+
+    /**
+     * Counts the number of times a word appears in the window
+     * @param word the normalized word
+     * @return the frequency of the word in the window
+     * @throws NoSuchElementException
+     *         if the word is not in the window
+     */
+    public int wordCount(String word) {
+        return totals.get(word);
+    }
+
+    /**
+     * Returns the rank of the word in the window based on its frequency relative to other words
+     * @param word the normalized word
+     * @return the rank of the word or 0 if it is not in the window
+     */
+    public int wordRank(String word) {
+        Integer count = totals.getOrDefault(word, null);
+        return count == null ? 0 : histogram.rank(count);
+    }
+
+    /**
+     * Returns k words of the window with the highest frequencies
+     * @param k the number of words to return
+     * @return k words with the highest frequencies, words of equal frequency in alphabetical order
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of distinct words in the window
+     */
+    public String[] mostCommonWords(int k) {
+        return select(k, byCount.descendingMap().values());
+    }
+
+    /**
+     * Returns k words of the window with the lowest frequencies
+     * @param k the number of words to return
+     * @return k words with the lowest frequencies, words of equal frequency in alphabetical order
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of distinct words in the window
+     */
+    public String[] leastCommonWords(int k) {
+        return select(k, byCount.values());
+    }
+
+    /**
+     * Returns the first k words of the groups in the order given
+     * @param k the number of words to return
+     * @param groups the groups of words with equal counts
+     * @return the first k words
+     */
+    private String[] select(int k, Iterable<TreeSet<String>> groups) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k > size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        ArrayList<String> result = new ArrayList<String>(k);
+        for (TreeSet<String> group : groups) {
+            for (String word : group) {
+                if (result.size() == k) {
+                    return result.toArray(new String[k]);
+                }
+                result.add(word);
+            }
+        }
+        return result.toArray(new String[k]);
+    }
+
+    /**
+     * Returns the number of distinct words in the window
+     * @return the number of distinct words
+     */
+    public int size() {
+        return totals.size();
+    }
+
+    /**
+     * Returns the number of words in the window
+     * @return the number of words
+     */
+    public long tokens() {
+        return tokens;
+    }
+}
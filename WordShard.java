@@ -0,0 +1,178 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * A class that counts the words of one partition of the vocabulary. A word belongs to the shard
+ * its hash code picks, so every shard sees whole words and the counts of the shards never
+ * overlap. Shards answer requests encoded as bytes, so a ShardTransport can carry them in the
+ * same process or to another machine
+ * @author Shravani Suram
+ */
+public class WordShard {
+    /** Request adding words that were already normalized */
+    static final byte ADD = 1;
+    /** Request tokenizing a file and adding the words of this shard */
+    static final byte ADD_FILE = 2;
+    /** Request for the count of a word */
+    static final byte COUNT = 3;
+    /** Request for how many words of this shard have each frequency */
+    static final byte HISTOGRAM = 4;
+    /** Request for the most common words of this shard with their counts */
+    static final byte TOP = 5;
+    /** Request for the number of distinct words and of words counted */
+    static final byte SIZE = 6;
+
+    /** Response status of a request that was answered */
+    static final byte OK = 0;
+    /** Response status of a request that failed, followed by a message */
+    static final byte FAILED = 1;
+
+    /** stores the index of the shard */
+    private int index;
+    /** stores the number of shards */
+    private int shards;
+    /** stores the words of this shard and their counts */
+    private IntCounterTable table = new IntCounterTable();
+    /** stores the number of words counted by this shard */
+    private long tokens = 0;
+
+    /**
+     * Creates an empty WordShard
+     * @param index the index of the shard
+     * @param shards the number of shards
+     * @throws IllegalArgumentException
+     *         if index is not between 0 and shards
+     */
+    public WordShard(int index, int shards) {
+        if (index < 0 || index >= shards) {
+            throw new IllegalArgumentException();
+        }
+        this.index = index;
+        this.shards = shards;
+    }
+
+    /**
+     * Returns the shard a word belongs to, using the hash code HashTable uses
+     * @param word the normalized word
+     * @param shards the number of shards
+     * @return the index of the shard
+     */
+    public static int owner(String word, int shards) {
+        return (word.hashCode() & 0x7fffffff) % shards;
+    }
+
+    /**
+     * Returns the shard a word held in a character buffer belongs to
+     * @param buf the buffer holding the word
+     * @param off the index of the first character of the word
+     * @param len the number of characters in the word
+     * @param shards the number of shards
+     * @return the index of the shard
+     */
+    static int owner(char[] buf, int off, int len, int shards) {
+        return (IntCounterTable.hash(buf, off, len) & 0x7fffffff) % shards;
+    }
+
+    /**
+     * Answers one request
+     * @param request the encoded request
+     * @return the encoded response, starting with OK or FAILED
+     */
+    public synchronized byte[] handle(byte[] request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+            byte op = in.readByte();
+            out.writeByte(OK);
+            switch (op) {
+                case ADD:
+                    for (int n = in.readInt(); n > 0; n--) {
+                        table.add(in.readUTF(), 1);
+                        tokens++;
+                    }
+                    break;
+                case ADD_FILE:
+                    String file = in.readUTF();
+                    Charset charset = Charset.forName(in.readUTF());
+                    Tokenizer.stream(file, charset, (buf, off, len) -> {
+                        if (owner(buf, off, len, shards) == index) {
+                            table.add(buf, off, len, 1);
+                            tokens++;
+                        }
+                    });
+                    break;
+                case COUNT:
+                    int id = table.idOf(in.readUTF());
+                    out.writeInt(id < 0 ? 0 : table.valueAt(id));
+                    break;
+                case HISTOGRAM:
+                    FrequencyHistogram histogram = new FrequencyHistogram(table.counts(), table.size());
+                    out.writeInt(histogram.size());
+                    for (int i = 0; i < histogram.size(); i++) {
+                        out.writeInt(histogram.frequencyAt(i));
+                        out.writeInt(histogram.wordsAt(i));
+                    }
+                    break;
+                case TOP:
+                    ArrayList<Integer> top = top(in.readInt());
+                    out.writeInt(top.size());
+                    for (int word : top) {
+                        out.writeUTF(table.keyAt(word));
+                        out.writeInt(table.valueAt(word));
+                    }
+                    break;
+                case SIZE:
+                    out.writeInt(table.size());
+                    out.writeLong(tokens);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown request " + op);
+            }
+        } catch (IOException | RuntimeException e) {
+            /** the request was not answered, so nothing written before the failure is sent */
+            bytes.reset();
+            try {
+                out.writeByte(FAILED);
+                out.writeUTF(String.valueOf(e));
+            } catch (IOException f) {
+                throw new IllegalStateException(f);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the ids of the k most common words of this shard, ordered by count and then
+     * alphabetically, which is an order every shard agrees on so their results can be merged
+     * @param k the number of words to return
+     * @return the ids of at most k words
+     * @throws IllegalArgumentException
+     *         if k is negative
+     */
+    private ArrayList<Integer> top(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] counts = table.counts();
+        int size = table.size();
+        /** every word counted at least as often as the kth most common one may be in the result */
+        int threshold = k >= size ? 0 : k == 0 ? Integer.MAX_VALUE : counts[TopK.largest(counts, size, k)[k - 1]];
+        ArrayList<Integer> candidates = new ArrayList<Integer>();
+        for (int id = 0; id < size; id++) {
+            if (counts[id] >= threshold) {
+                candidates.add(id);
+            }
+        }
+        Collections.sort(candidates, Comparator.<Integer>comparingInt(id -> -counts[id])
+                .thenComparing(id -> table.keyAt(id)));
+        return new ArrayList<Integer>(candidates.subList(0, Math.min(k, candidates.size())));
+    }
+}
@@ -1,5 +1,10 @@
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 
@@ -7,15 +12,138 @@ import java.util.NoSuchElementException;
  * A class that can calculate statistics for a set of words
  */
 public class WordStat {
-    /** Stores the normalized order of the words in the inputted String */
-    private ArrayList<String> order;
+    /**
+     * nested class choosing which statistics a WordStat keeps besides the count of every word.
+     * Nothing else is kept unless asked for, so jobs that only count words neither store the
+     * order of the words nor keep a frequency histogram
+     */
+    public static final class Builder {
+        /** stores whether the order of the words is kept */
+        private boolean order = false;
+        /** stores whether the frequency histogram is kept once a rank is asked for */
+        private boolean ranks = false;
+        /** stores the memory budget of the collocation index, or -1 if collocations are not indexed */
+        private long collocationBudget = -1;
+        /** stores how the text is normalized */
+        private TextNormalizer normalizer = TextNormalizer.DEFAULT;
+
+        /**
+         * Creates a Builder that only keeps the count of every word
+         */
+        private Builder() {
+        }
+
+        /**
+         * Keeps the frequency histogram once a rank is asked for and updates it as words are
+         * added; without it every rank query counts the words with a higher frequency.
+         * wordsByRank keeps the ids in rank order either way, until words are added
+         * @return this builder
+         */
+        public Builder withRanks() {
+            ranks = true;
+            return this;
+        }
 
-    /** Stores the normalized words and their ranking based on frequency */
-    private HashTable<Integer> rankTable;
-    /** Stores normalized words and their frequencies in ascending order */
-    private ArrayList<HashTable<Integer>.HashNode<Integer>> sortedTable;
-    /** Stores the normalized words and their frequencies */
-    private HashTable<Integer> table;
+        /**
+         * Keeps the id of every word in order, which collocation, co-occurrence, phrase and
+         * n-gram queries need, at four bytes a word
+         * @return this builder
+         */
+        public Builder withOrder() {
+            order = true;
+            return this;
+        }
+
+        /**
+         * Keeps the order of the words and indexes collocations the first time mostCommonNeighbors is called
+         * @param memoryBudget the number of bytes the index may use
+         * @return this builder
+         * @throws IllegalArgumentException
+         *         thrown when memoryBudget is negative
+         */
+        public Builder withCollocations(long memoryBudget) {
+            if (memoryBudget < 0) {
+                throw new IllegalArgumentException();
+            }
+            order = true;
+            collocationBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * Sets how the text is normalized, including text added later
+         * @param normalizer the normalizer
+         * @return this builder
+         */
+        public Builder withNormalizer(TextNormalizer normalizer) {
+            this.normalizer = normalizer;
+            return this;
+        }
+
+        /**
+         * Creates a WordStat of the text
+         * @param text the set of Strings containing the text to be examined
+         * @return the statistics of the text
+         */
+        public WordStat build(String[] text) {
+            long start = System.nanoTime();
+            WordStat stat = new WordStat(this);
+            Tokenizer.stream(text, normalizer, stat::count);
+            stat.built(null, 0, start);
+            return stat;
+        }
+
+        /**
+         * Creates a WordStat of a file
+         * @param file the file containing the text to be examined
+         * @return the statistics of the file
+         * @throws IOException if the file cannot be read
+         */
+        public WordStat build(String file) throws IOException {
+            long start = System.nanoTime();
+            WordStat stat = new WordStat(this);
+            try {
+                Tokenizer.stream(file, Charset.defaultCharset(), normalizer, stat::count);
+            } catch (IOException e) {
+                metrics.failed("tokenize", e);
+                throw e;
+            }
+            stat.built(file, 0, start);
+            return stat;
+        }
+    }
+
+    /** Stores the id of every normalized word of the inputted String in order, or null if the order is not kept */
+    private IntList order;
+    /** Stores the number of words counted */
+    private long tokens = 0;
+    /** Stores whether the frequency histogram is kept and updated once a rank is asked for */
+    private boolean keepRanks = true;
+    /** Stores how the text is normalized */
+    private TextNormalizer normalizer = TextNormalizer.DEFAULT;
+
+    /** Stores how many words have each frequency, used to rank words, or null until a rank is asked for */
+    private volatile FrequencyHistogram rankTable;
+    /** Stores the normalized words and their frequencies; the id of a word is the order it was first seen in */
+    private IntCounterTable table;
+    /** Stores the words seen most often directly before and after each word, or null if not indexed */
+    private volatile CollocationIndex collocations;
+    /** Stores the positions of every word for phrase and co-occurrence queries, or null until one is asked */
+    private volatile PositionalIndex positions;
+    /** Stores the ids of the words from most to least frequent, words of equal frequency last seen first, or null until wordsByRank is asked */
+    private volatile int[] byRank;
+    /** Stores the positions of every word for windowed co-occurrence queries, or null until one is asked */
+    private volatile CooccurrenceIndex cooccurrences;
+    /** Stores the ids of the words in alphabetical order, extended as words are added */
+    private volatile int[] byKey = new int[0];
+    /** Stores the memory budget of the collocation index, or -1 if collocations are not indexed */
+    private long collocationBudget = -1;
+    /** Stores the mapped snapshot queries are answered from, or null once the statistics are on the heap */
+    private volatile WordStatSnapshot snapshot;
+    /** Stores the number of times words were added after the statistics were built */
+    private volatile long version = 0;
+    /** Stores where every WordStat reports how it is built and queried */
+    private static volatile WordStatMetrics metrics = WordStatMetrics.NONE;
 
 
     /**
@@ -23,93 +151,354 @@ public class WordStat {
      * @param file the file containing the text to be examined
      */
     public WordStat(String file) {
-        Tokenizer token;
-        int rank, rankN, prevFreq;
+        long start = System.nanoTime();
+        table = new IntCounterTable(100);
+        order = new IntList();
+        /** Normalize words and store order of words */
+        try {
+            Tokenizer.stream(file, Charset.defaultCharset(), this::count);
+            built(file, 0, start);
+        }
+        catch(NoSuchFileException e){
+            System.out.println("FileNotFoundException");
+            metrics.failed("tokenize", e);
+        }
+        catch(IOException b){
+            System.out.println("IOException");
+            metrics.failed("tokenize", b);
+        }
+    }
+
 
+    /**
+     * Creates an instance of WordStat
+     * @param text the set of Strings containing the text to be examined
+     */
+    public WordStat(String[] text) {
+        long start = System.nanoTime();
+        table = new IntCounterTable(100);
+        order = new IntList();
         /** Normalize words and store order of words */
-        token = new Tokenizer(file);
-        order = token.wordList();
+        Tokenizer.stream(text, this::count);
+        built(null, 0, start);
+    }
 
-        /** Add all normalized words to a hashtable and store frequency */
-        table = new HashTable<Integer>(100);
-        /** Checks that there is at least 1 normalized word */
-        if (order != null) {
-            for (int i = 0; i < order.size(); i++) {
-                table.put(order.get(i), 1);
-            }
-            /** Copy HashTable into ArrayList */
-            sortedTable = table.getTable();
-
-            /** Sort the arraylist by frequency */
-            Collections.sort(sortedTable);
-            rankTable = new HashTable<Integer>();
-            /** Stores the number of words that have been traversed */
-            rank = 0;
-            /** Stores the rank that should be given to the current word */
-            rankN = 0;
-            /** Stores the frequency of the previous word to check if equal */
-            prevFreq = -1;
-            /** Traverses through sorted list of words and frequencies */
-            for (int i = sortedTable.size() - 1; i >= 0; i--) {
-                rank++;
-                if(prevFreq != sortedTable.get(i).getValue()) {
-                    rankN = rank;
+    /**
+     * Returns a Builder of a WordStat that keeps only the count of every word until told to keep
+     * more. Whatever is kept is built on the first query that needs it, once, even when queries
+     * come from several threads, as long as no words are being added at the same time
+     * @return a new Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates an empty instance of WordStat keeping what the builder asks for
+     * @param builder the builder
+     */
+    private WordStat(Builder builder) {
+        table = new IntCounterTable(100);
+        order = builder.order ? new IntList() : null;
+        keepRanks = builder.ranks;
+        collocationBudget = builder.collocationBudget;
+        normalizer = builder.normalizer;
+    }
+
+    /**
+     * Sets where every WordStat reports how it is built and queried
+     * @param metrics the metrics to report to, or null to stop reporting
+     */
+    public static void setMetrics(WordStatMetrics metrics) {
+        WordStat.metrics = metrics == null ? WordStatMetrics.NONE : metrics;
+    }
+
+    /**
+     * Reports a tokenizing pass and the shape of the table to the metrics, if any are set
+     * @param file the file that was read, or null if the text was not read from a file
+     * @param tokensBefore the number of words before the pass
+     * @param start the System.nanoTime at which the pass started
+     */
+    private void built(String file, long tokensBefore, long start) {
+        WordStatMetrics metrics = WordStat.metrics;
+        if (metrics == WordStatMetrics.NONE) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        metrics.tokenized(file == null ? 0 : new File(file).length(), tokens - tokensBefore, nanos);
+        metrics.phase("tokenize", nanos);
+        metrics.table(table.size(), table.getCapacity(), table.getLoadFactor(),
+                table.getMaxProbeLength(), table.getMeanProbeLength(), table.getResizeCount());
+    }
+
+    /**
+     * Creates an instance of WordStat from words that several threads counted into a ConcurrentCounterTable.
+     * The order of those words is not known, so collocation queries only see text added afterwards
+     * @param counts the normalized words and their frequencies
+     */
+    public WordStat(ConcurrentCounterTable counts) {
+        this(new IntList(), counts.getTable());
+        /** adds up the frequencies, since there is no order to count the words from */
+        for (int id = 0; id < table.size(); id++) {
+            tokens += table.valueAt(id);
+        }
+    }
+
+    /**
+     * Creates an instance of WordStat from normalized words that have already been counted
+     * @param order the ids of the normalized words in order
+     * @param table the normalized words and their frequencies
+     */
+    WordStat(IntList order, IntCounterTable table) {
+        this.order = order;
+        this.table = table;
+        this.tokens = order.size();
+    }
+
+    /**
+     * Creates an instance of WordStat that answers queries from a mapped snapshot
+     * @param snapshot the opened snapshot
+     */
+    private WordStat(WordStatSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Opens statistics saved with save by memory mapping the file. wordCount, wordRank, wordId, word,
+     * mostCommonWords and leastCommonWords read the mapped file directly; the first call of any
+     * other method loads the statistics onto the heap
+     * @param file the snapshot file
+     * @return the statistics stored in the file
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static WordStat open(Path file) throws IOException {
+        return new WordStat(WordStatSnapshot.open(file));
+    }
+
+    /**
+     * Opens statistics saved with save, first checking the whole file against its checksum
+     * @param file the snapshot file
+     * @param verify whether to read the whole file and check its checksum
+     * @return the statistics stored in the file
+     * @throws IOException if the file cannot be read, is not a snapshot or is corrupt
+     */
+    public static WordStat open(Path file, boolean verify) throws IOException {
+        WordStatSnapshot snapshot = WordStatSnapshot.open(file);
+        if (verify) {
+            snapshot.verify();
+        }
+        return new WordStat(snapshot);
+    }
+
+    /**
+     * Saves the statistics, including the order of the words if it is kept, to a snapshot file
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        save(file, true);
+    }
+
+    /**
+     * Saves the statistics to a snapshot file
+     * @param file the file to write
+     * @param includeOrder whether to store the order of the words, which collocation queries need, if it is kept
+     *        for every word counted
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file, boolean includeOrder) throws IOException {
+        load();
+        /** the snapshot reads back as many ids as there are tokens, so an order missing some words is left out */
+        boolean complete = order != null && order.size() == tokens;
+        WordStatSnapshot.write(file, table, includeOrder && complete ? order : null, tokens);
+    }
+
+    /**
+     * Loads the statistics of a mapped snapshot onto the heap so they can be changed and fully queried
+     */
+    private void load() {
+        if (snapshot != null) {
+            synchronized (this) {
+                WordStatSnapshot mapped = snapshot;
+                if (mapped != null) {
+                    try {
+                        order = mapped.loadOrder();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    tokens = mapped.tokens();
+                    table = mapped.loadTable();
+                    /** readers that see snapshot cleared by this volatile write also see table and order */
+                    snapshot = null;
                 }
-                /** Add word and its rank to rankTable */
-                rankTable.put(sortedTable.get(i).getKey(), rankN);
-                /** Update prevFreq before next iteration */
-                prevFreq = sortedTable.get(i).getValue();
             }
         }
     }
 
+    /**
+     * Returns the id of every word in order, loading a mapped snapshot first
+     * @return the ids of the normalized words in order
+     * @throws IllegalStateException if the order of the words is not kept
+     */
+    private IntList order() {
+        load();
+        if (order == null) {
+            throw new IllegalStateException();
+        }
+        return order;
+    }
 
     /**
-     * Creates an instance of WordStat
-     * @param text the set of Strings containing the text to be examined
+     * Creates an instance of WordStat by counting a large file on several threads
+     * @param file the file containing the text to be examined
+     * @return the same statistics as new WordStat(file)
+     * @throws IOException if the file cannot be read
      */
-    public WordStat(String[] text) {
-        Tokenizer token;
-        int rank, rankN, prevFreq;
+    public static WordStat parallel(String file) throws IOException {
+        return parallel(file, Charset.defaultCharset(), Runtime.getRuntime().availableProcessors());
+    }
 
-        /** Normalize words and store order of words */
-        token = new Tokenizer(text);
-        order = token.wordList();
+    /**
+     * Creates an instance of WordStat by counting a large file on several threads
+     * @param file the file containing the text to be examined
+     * @param charset the charset the file is encoded in
+     * @param threads the number of threads counting the file
+     * @return the same statistics as a sequential WordStat of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static WordStat parallel(String file, Charset charset, int threads) throws IOException {
+        long start = System.nanoTime();
+        WordStat stat;
+        try {
+            stat = ParallelWordCounter.count(file, charset, threads);
+        } catch (IOException e) {
+            metrics.failed("tokenize", e);
+            throw e;
+        }
+        stat.built(file, 0, start);
+        return stat;
+    }
 
-        /** Add all normalized words to a hashtable and store frequency */
-        table = new HashTable<Integer>(100);
-        /** Checks that there is at least 1 normalized word */
+    /**
+     * Adds the normalized words of more text, updating frequencies and ranks in place
+     * @param text the set of Strings containing the text to be added
+     */
+    public void addText(String[] text) {
+        load();
+        long start = System.nanoTime();
+        long before = tokens;
+        Tokenizer.stream(text, normalizer, this::count);
+        collocations = null;
+        positions = null;
+        byRank = null;
+        cooccurrences = null;
+        version++;
+        built(null, before, start);
+    }
+
+    /**
+     * Adds a batch of words that were already normalized, updating frequencies and ranks in place
+     * @param chars the characters of the words one after another
+     * @param ends the index in chars after the last character of each word
+     * @param count the number of words in the batch
+     */
+    void addTokens(char[] chars, int[] ends, int count) {
+        load();
+        long start = System.nanoTime();
+        long before = tokens;
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            count(chars, from, ends[i] - from);
+            from = ends[i];
+        }
+        collocations = null;
+        positions = null;
+        byRank = null;
+        cooccurrences = null;
+        version++;
+        built(null, before, start);
+    }
+
+    /**
+     * Adds the normalized words of another file, updating frequencies and ranks in place
+     * @param file the file containing the text to be added
+     * @throws IOException if the file cannot be read
+     */
+    public void addFile(String file) throws IOException {
+        load();
+        long start = System.nanoTime();
+        long before = tokens;
+        try {
+            Tokenizer.stream(file, Charset.defaultCharset(), normalizer, this::count);
+        } catch (IOException e) {
+            metrics.failed("tokenize", e);
+            throw e;
+        } finally {
+            collocations = null;
+            positions = null;
+            byRank = null;
+            cooccurrences = null;
+            version++;
+        }
+        built(file, before, start);
+    }
+
+    /**
+     * Returns a number that changes whenever words are added, so cached results can be checked
+     * @return the version of the statistics
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * Adds a normalized word to the hashtable and stores its id in order if the order is kept
+     * @param buf the buffer holding the normalized word
+     * @param off the index of the first character of the word
+     * @param len the number of characters in the word
+     */
+    private void count(char[] buf, int off, int len) {
+        int id = table.add(buf, off, len, 1);
+        tokens++;
         if (order != null) {
-            for (int i = 0; i < order.size(); i++) {
-                table.put(order.get(i), 1);
-            }
-            /** Copy HashTable into ArrayList */
-            sortedTable = table.getTable();
-
-            /** Sort the arraylist by frequency */
-            Collections.sort(sortedTable);
-            rankTable = new HashTable<Integer>();
-            /** Stores the number of words that have been traversed */
-            rank = 0;
-            /** Stores the rank that should be given to the current word */
-            rankN = 0;
-            /** Stores the frequency of the previous word to check if equal */
-            prevFreq = -1;
-            int j = 0;
-            /** Traverses through sorted list of words and frequencies */
-            for (int i = sortedTable.size() - 1; i >= 0; i--, j++) {
-                rank++;
-                if(prevFreq != sortedTable.get(i).getValue()) {
-                    rankN = rank;
-                }
-                /** Add word and its rank to rankTable */
-                rankTable.put(sortedTable.get(i).getKey(), rankN);
-                /** Update prevFreq before next iteration */
-                prevFreq = sortedTable.get(i).getValue();
+            order.add(id);
+        }
+        /** moves the word up one frequency so ranks stay current without being rebuilt */
+        if (rankTable != null) {
+            int freq = table.valueAt(id);
+            rankTable.increase(freq - 1, freq);
+        }
+    }
 
-            }
+    /**
+     * Returns the id of a normalized word, which is the number of distinct words seen before it
+     * @param word the normalized word
+     * @return the id of the word or -1 if it is not in the text
+     */
+    public int wordId(String word) {
+        WordStatSnapshot mapped = snapshot;
+        if (mapped != null) {
+            return mapped.idOf(word);
+        }
+        return table.idOf(word);
+    }
 
+    /**
+     * Returns the normalized word with the specified id
+     * @param id the id of the word
+     * @return the word with that id
+     * @throws IndexOutOfBoundsException
+     *         if no word has that id
+     */
+    public String word(int id) {
+        WordStatSnapshot mapped = snapshot;
+        if (mapped != null) {
+            if (id < 0 || id >= mapped.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return mapped.keyAt(id);
         }
+        return table.keyAt(id);
     }
 
     /**
@@ -118,40 +507,271 @@ public class WordStat {
      * @return the frequency of the inputted word
      */
     public int wordCount(String word) {
+        WordStatSnapshot mapped = snapshot;
+        if (mapped != null) {
+            int id = mapped.idOf(word);
+            if (id < 0) {
+                throw new NoSuchElementException();
+            }
+            return mapped.count(id);
+        }
         return table.get(word);
     }
 
+    /**
+     * Counts the number of times a word appears in the text
+     * @param id the id of the word who's frequency will be recorded
+     * @return the frequency of the word
+     * @throws NoSuchElementException
+     *         if no word has that id
+     */
+    public int wordCount(int id) {
+        WordStatSnapshot mapped = snapshot;
+        if (id < 0 || id >= (mapped != null ? mapped.size() : table.size())) {
+            throw new NoSuchElementException();
+        }
+        if (mapped != null) {
+            return mapped.count(id);
+        }
+        return table.valueAt(id);
+    }
+
     /**
      * Returns the rank of the word inputted based on its frequency relative to other words
      * @param word the word whose rank will be returned
      * @return the rank of the word
      */
     public int wordRank(String word) {
+        return wordRank(wordId(word));
+    }
+
+    /**
+     * Returns the rank of the word based on its frequency relative to other words
+     * @param id the id of the word whose rank will be returned
+     * @return the rank of the word or 0 if no word has that id
+     */
+    public int wordRank(int id) {
+        WordStatMetrics metrics = WordStat.metrics;
+        if (metrics == WordStatMetrics.NONE) {
+            return rank(id);
+        }
+        long start = System.nanoTime();
+        int rank = rank(id);
+        metrics.query("wordRank", System.nanoTime() - start);
+        return rank;
+    }
+
+    /**
+     * Returns the rank of the word based on its frequency relative to other words
+     * @param id the id of the word whose rank will be returned
+     * @return the rank of the word or 0 if no word has that id
+     */
+    private int rank(int id) {
+        WordStatSnapshot mapped = snapshot;
         /** checks if word is in the table */
-        try {
-            return rankTable.get(word);
-            }
-       catch(NoSuchElementException e) {
+        if (id < 0 || id >= (mapped != null ? mapped.size() : table.size())) {
             return 0;
-       }
+        }
+        if (mapped != null) {
+            return mapped.rank(id);
+        }
+        if (keepRanks == false) {
+            /** counts the words with a higher frequency rather than keeping a histogram */
+            int[] counts = table.counts();
+            int count = counts[id];
+            int rank = 1;
+            for (int i = table.size() - 1; i >= 0; i--) {
+                if (counts[i] > count) {
+                    rank++;
+                }
+            }
+            return rank;
+        }
+        return histogram().rank(table.valueAt(id));
+    }
+
+    /**
+     * Returns how many words have each frequency, building it on the first call; after that it
+     * is kept current as words are added, unless ranks are not kept, in which case it is built
+     * for every call and dropped
+     * @return the frequency histogram of the words
+     */
+    private FrequencyHistogram histogram() {
+        FrequencyHistogram histogram = rankTable;
+        if (histogram == null) {
+            if (keepRanks == false) {
+                return new FrequencyHistogram(table.counts(), table.size());
+            }
+            synchronized (this) {
+                histogram = rankTable;
+                if (histogram == null) {
+                    long start = System.nanoTime();
+                    histogram = new FrequencyHistogram(table.counts(), table.size());
+                    metrics.phase("rank", System.nanoTime() - start);
+                    rankTable = histogram;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the number of distinct words that appear exactly the specified number of times,
+     * a binary search over the distinct frequencies rather than a scan of the words
+     * @param frequency the number of times the words appear
+     * @return the number of words with that frequency
+     */
+    public int frequencyCount(int frequency) {
+        WordStatSnapshot mapped = snapshot;
+        if (mapped != null) {
+            /** the snapshot orders ids from most to least frequent, so the words of one frequency are a run */
+            return firstBelow(mapped, frequency - 1) - firstBelow(mapped, frequency);
+        }
+        return histogram().words(frequency);
+    }
+
+    /**
+     * Returns the first position in the snapshot's order from most to least frequent whose word
+     * appears no more than the specified number of times
+     * @param mapped the snapshot
+     * @param frequency the frequency
+     * @return the position, or size() if every word appears more often
+     */
+    private static int firstBelow(WordStatSnapshot mapped, int frequency) {
+        int low = 0;
+        int high = mapped.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mapped.count(mapped.byRank(mid)) > frequency) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the words at a range of positions in the order mostCommonWords returns them, so
+     * wordsByRank(1000, 1100) are the words ranked 1000th to 1100th. The ids of every word are
+     * sorted into rank order on the first call after words are added, so later calls only read
+     * the range
+     * @param from the position of the first word, 1 being the most frequent word
+     * @param to the position of the last word
+     * @return the words from position from to position to, words of equal frequency last seen first
+     * @throws IllegalArgumentException
+     *         thrown when from is less than 1 or to is less than from
+     * @throws IndexOutOfBoundsException
+     *         thrown when to is larger than the number of distinct words
+     */
+    public String[] wordsByRank(int from, int to) {
+        WordStatMetrics metrics = WordStat.metrics;
+        if (metrics == WordStatMetrics.NONE) {
+            return ranked(from, to);
+        }
+        long start = System.nanoTime();
+        String[] words = ranked(from, to);
+        metrics.query("wordsByRank", System.nanoTime() - start);
+        return words;
+    }
+
+    /**
+     * Returns the words at a range of positions in the order mostCommonWords returns them
+     * @param from the position of the first word, 1 being the most frequent word
+     * @param to the position of the last word
+     * @return the words from position from to position to
+     */
+    private String[] ranked(int from, int to) {
+        if (from < 1 || to < from) {
+            throw new IllegalArgumentException();
+        }
+        WordStatSnapshot mapped = snapshot;
+        if (to > (mapped != null ? mapped.size() : table.size())) {
+            throw new IndexOutOfBoundsException();
+        }
+        String[] result = new String[to - from + 1];
+        if (mapped != null) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = mapped.keyAt(mapped.byRank(from - 1 + i));
+            }
+            return result;
+        }
+        int[] ids = rankOrder();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = table.keyAt(ids[from - 1 + i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of every word in rank order, sorting them on the first call after words are added
+     * @return the ids from most to least frequent, words of equal frequency last seen first
+     */
+    private int[] rankOrder() {
+        int[] ids = byRank;
+        if (ids == null) {
+            synchronized (this) {
+                ids = byRank;
+                if (ids == null) {
+                    /** sorts count and id packed in one long, then reads them back from the largest */
+                    int size = table.size();
+                    int[] counts = table.counts();
+                    long[] packed = new long[size];
+                    for (int id = 0; id < size; id++) {
+                        packed[id] = (long) counts[id] << 32 | id;
+                    }
+                    Arrays.sort(packed);
+                    ids = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        ids[i] = (int) packed[size - 1 - i];
+                    }
+                    byRank = ids;
+                }
+            }
+        }
+        return ids;
     }
 
     /**
      * Returns k words with the highest frequencies
      * @param k the number of words to return
-     * @return k words with the highest frequencies
+     * @return k words with the highest frequencies, words of equal frequency last seen first
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of distinct words
      */
     public String[] mostCommonWords(int k) {
+        WordStatMetrics metrics = WordStat.metrics;
+        if (metrics == WordStatMetrics.NONE) {
+            return largest(k);
+        }
+        long start = System.nanoTime();
+        String[] words = largest(k);
+        metrics.query("mostCommonWords", System.nanoTime() - start);
+        return words;
+    }
+
+    /**
+     * Returns k words with the highest frequencies
+     * @param k the number of words to return
+     * @return k words with the highest frequencies, words of equal frequency last seen first
+     */
+    private String[] largest(int k) {
         /** checks if k is less than 0 */
         if(k >= 0) {
-            String[] result = new String[k];
-            int count = 0;
-            /** Traverses from back for highest frequencies */
-            for (int i = sortedTable.size() - 1; count < k; i--) {
-                result[count] = sortedTable.get(i).getKey();
-                count++;
+            WordStatSnapshot mapped = snapshot;
+            if (k > (mapped != null ? mapped.size() : table.size())) {
+                throw new IndexOutOfBoundsException();
             }
-            return result;
+            if (mapped != null) {
+                String[] result = new String[k];
+                for (int i = 0; i < k; i++) {
+                    result[i] = mapped.keyAt(mapped.byRank(i));
+                }
+                return result;
+            }
+            return words(TopK.largest(table.counts(), table.size(), k));
         }
         else
             throw new IllegalArgumentException();
@@ -159,22 +779,54 @@ public class WordStat {
     /**
      * Returns k words with the lowest frequencies
      * @param k the number of words to return
-     * @return k words with the lowest frequencies
+     * @return k words with the lowest frequencies, words of equal frequency first seen first
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     * @throws IndexOutOfBoundsException
+     *         thrown when k is larger than the number of distinct words
      */
     public String[] leastCommonWords(int k) {
         /** checks if k is less than 0 */
         if(k >= 0) {
-            String[] result = new String[k];
-            /** Traverses list from the front for lowest frequencies */
-            for (int i = 0; i < k; i++) {
-                result[i] = sortedTable.get(i).getKey();
+            WordStatSnapshot mapped = snapshot;
+            if (k > (mapped != null ? mapped.size() : table.size())) {
+                throw new IndexOutOfBoundsException();
             }
-            return result;
+            if (mapped != null) {
+                String[] result = new String[k];
+                for (int i = 0; i < k; i++) {
+                    result[i] = mapped.keyAt(mapped.byRank(mapped.size() - 1 - i));
+                }
+                return result;
+            }
+            return words(TopK.smallest(table.counts(), table.size(), k));
         }
         else
             throw new IllegalArgumentException();
     }
 
+    /**
+     * Returns the number of distinct normalized words
+     * @return the number of distinct words
+     */
+    public int size() {
+        WordStatSnapshot mapped = snapshot;
+        return mapped != null ? mapped.size() : table.size();
+    }
+
+    /**
+     * Returns the words with the specified ids
+     * @param ids the ids of the words
+     * @return the words in the same order
+     */
+    private String[] words(int[] ids) {
+        String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = table.keyAt(ids[i]);
+        }
+        return result;
+    }
+
     /**
      * Returns k most frequent words before or after specified word
      * @param k the number of words to return in array
@@ -183,65 +835,385 @@ public class WordStat {
      * @return k most frequent words before or after base word
      * @throws IllegalArgumentException
      *         thrown when k is negative
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
      */
     public String[] mostCommonCollocations(int k, String baseWord, boolean precede) throws IllegalArgumentException{
-        /** Stores all of the words before or after baseword */
-        HashTable<Integer> commonWords = new HashTable<Integer>();
-        HashTable<Integer>.HashNode<Integer> node, node1;
-        /** List with words before or after baseword sorted by frequency */
-        ArrayList<HashTable<Integer>.HashNode<Integer>> commonWordsSorted;
-        /** stores freq of words before or after base word */
-        int freq;
-        /** flag that indicates if base word was found yet */
-        boolean wordFound = false;
-        /** stores words traversing through in list */
-        String word1;
+        load();
+        return mostCommonCollocations(k, table.idOf(baseWord), precede);
+    }
+
+    /**
+     * Returns k most frequent words before or after specified word
+     * @param k the number of words to return in array
+     * @param baseId the id of the word from which words are returned before or after
+     * @param precede whether to return most frequent words before or after
+     * @return k most frequent words before or after base word
+     * @throws IllegalArgumentException
+     *         thrown when k is negative or the base word is not in the text
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
+     */
+    public String[] mostCommonCollocations(int k, int baseId, boolean precede) throws IllegalArgumentException{
+        WordStatMetrics metrics = WordStat.metrics;
+        if (metrics == WordStatMetrics.NONE) {
+            return collocated(k, baseId, precede);
+        }
+        long start = System.nanoTime();
+        String[] words = collocated(k, baseId, precede);
+        metrics.query("mostCommonCollocations", System.nanoTime() - start);
+        return words;
+    }
+
+    /**
+     * Returns k most frequent words before or after specified word
+     * @param k the number of words to return in array
+     * @param baseId the id of the word from which words are returned before or after
+     * @param precede whether to return most frequent words before or after
+     * @return k most frequent words before or after base word, words of equal frequency last seen first
+     */
+    private String[] collocated(int k, int baseId, boolean precede) {
+        IntList order = order();
+        /** stores the ids of the words before or after baseword in the order they were first seen */
+        IntList commonWords = new IntList();
+        /** marks the ids already added to commonWords */
+        boolean[] seen;
+        /** stores the frequency and position in commonWords of each word, sorted by frequency */
+        long[] commonWordsSorted;
+        /** stores the position of the first occurrence of the base word */
+        int first;
         /** stores number of words before or after base word traversed through */
         int count = 0;
-        /** stores the final resulting arraylist with k most frequent words before or after base word */
-        if(k >= 0 && order != null) {
+        if(k >= 0 && order.size() != 0) {
             String[] result = new String[k];
-            /** traverse through list to find baseword and continue if precede is false */
-            for (int i = 0; i < order.size(); i++) {
-                word1 = order.get(i);
-                if (wordFound == false && word1.equals(baseWord)) {
-                    wordFound = true;
-                    /** uses saved words BEFORE the baseword if precede is true */
-                    if (precede == true) {
-                        break;
-                    }
-                    /** continue in loop to collect words AFTER baseword if precede is false */
-                    continue;
-                }
-                /** check if word has already been added to array and update only frequency if so */
-                if (precede == true || (precede == false && wordFound == true)) {
-                    try {
-                        freq = commonWords.get(word1);
-                    } catch (NoSuchElementException e) {
-                        freq = table.get(word1);
-                        commonWords.put(word1, freq);
-                    }
+            first = baseId < 0 ? -1 : order.indexOf(baseId);
+            if(first < 0) {
+                throw new IllegalArgumentException();
+            }
+            seen = new boolean[table.size()];
+            /** uses words BEFORE the baseword if precede is true and words AFTER it otherwise */
+            int from = precede ? 0 : first + 1;
+            int to = precede ? first : order.size();
+            for (int i = from; i < to; i++) {
+                int id = order.get(i);
+                if (seen[id] == false) {
+                    seen[id] = true;
+                    commonWords.add(id);
                 }
             }
-            if(wordFound == false) {
-                throw new IllegalArgumentException();
+            /** sorts by frequency, so that words of equal frequency are read back last seen first */
+            commonWordsSorted = new long[commonWords.size()];
+            for (int i = 0; i < commonWordsSorted.length; i++) {
+                commonWordsSorted[i] = ((long) table.valueAt(commonWords.get(i)) << 32) | i;
             }
-            /** Copy HashTable into ArrayList */
-            commonWordsSorted = commonWords.getTable();
-            Collections.sort(commonWordsSorted);
+            Arrays.sort(commonWordsSorted);
 
             /** traverse through list of words before or after and add k most common words to result */
-            for (int i = commonWordsSorted.size() - 1; i >= 0; i--) {
-                if (commonWordsSorted.get(i).getKey() != null) {
-                    result[count] = commonWordsSorted.get(i).getKey();
-                    count++;
-                    if (count >= k)
-                        break;
-                }
+            for (int i = commonWordsSorted.length - 1; i >= 0 && count < k; i--) {
+                result[count] = table.keyAt(commonWords.get((int) commonWordsSorted[i]));
+                count++;
             }
             return result;
         }
         else
             throw new IllegalArgumentException();
     }
+
+    /**
+     * Counts the words seen directly before and after every word once, so that
+     * mostCommonNeighbors is answered without scanning the text
+     * @param memoryBudget the number of bytes the index may use; fewer neighbors are kept per word as it shrinks
+     * @throws IllegalArgumentException
+     *         thrown when memoryBudget is negative
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
+     */
+    public void indexCollocations(long memoryBudget) {
+        IntList order = order();
+        synchronized (this) {
+            collocations = new CollocationIndex(order, table.size(), memoryBudget);
+            collocationBudget = memoryBudget;
+        }
+    }
+
+    /**
+     * Returns k words seen most often directly before or after specified word
+     * @param k the number of words to return in array
+     * @param baseWord the word whose neighbors are returned
+     * @param precede whether to return the words before rather than after base word
+     * @return k most frequent neighbors of base word, padded with null if base word has fewer
+     *         or k is larger than the number of neighbors the index keeps
+     * @throws IllegalArgumentException
+     *         thrown when k is negative or base word is not in the text
+     * @throws IllegalStateException
+     *         thrown when neither indexCollocations nor the builder asked for collocations
+     */
+    public String[] mostCommonNeighbors(int k, String baseWord, boolean precede) {
+        load();
+        int id = table.idOf(baseWord);
+        if (k < 0 || id < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (collocationBudget < 0) {
+            throw new IllegalStateException();
+        }
+        String[] result = new String[k];
+        int[] ids = collocations().neighbors(id, precede, k);
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = table.keyAt(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the collocation index, building it on the first call and once after text was added
+     * @return the words seen most often directly before and after each word
+     */
+    private CollocationIndex collocations() {
+        CollocationIndex index = collocations;
+        if (index == null) {
+            synchronized (this) {
+                index = collocations;
+                if (index == null) {
+                    index = new CollocationIndex(order(), table.size(), collocationBudget);
+                    collocations = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns k words seen most often within a window around every occurrence of specified word.
+     * The positions of every word are indexed on the first call, so later calls only visit the
+     * occurrences of base word
+     * @param k the number of words to return in array
+     * @param baseWord the word whose neighbors are returned
+     * @param window the largest distance in words from an occurrence of base word
+     * @param score how neighbors are ranked: by co-occurrence count, PMI or log-likelihood
+     * @return k best neighbors of base word, padded with null if base word has fewer
+     * @throws IllegalArgumentException
+     *         thrown when k is negative, window is not positive or base word is not in the text
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
+     */
+    public String[] mostCommonCooccurrences(int k, String baseWord, int window, CooccurrenceIndex.Score score) {
+        load();
+        int id = table.idOf(baseWord);
+        if (k < 0 || window <= 0 || id < 0) {
+            throw new IllegalArgumentException();
+        }
+        String[] result = new String[k];
+        int[] ids = cooccurrences().neighbors(id, window, score, k);
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = table.keyAt(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the co-occurrence index, building it on the first call
+     * @return the positions of every word for windowed co-occurrence queries
+     */
+    private CooccurrenceIndex cooccurrences() {
+        CooccurrenceIndex index = cooccurrences;
+        if (index == null) {
+            synchronized (this) {
+                index = cooccurrences;
+                if (index == null) {
+                    index = new CooccurrenceIndex(order(), positions());
+                    cooccurrences = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the k most common words starting with a prefix. The ids of the words are sorted
+     * alphabetically on the first call and only the words added since are sorted and merged in
+     * later, so the words with the prefix are found by binary search
+     * @param prefix the start of the words, normalized as the text was
+     * @param k the number of words to return
+     * @return k most frequent words starting with prefix, words of equal frequency alphabetically,
+     *         padded with null if fewer words start with it
+     * @throws IllegalArgumentException
+     *         thrown when k is negative
+     */
+    public String[] wordsWithPrefix(String prefix, int k) {
+        load();
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] byKey = sortedIds();
+        byte[] encoded = KeyArena.encode(prefix);
+        int from = firstAfter(byKey, encoded, -1);
+        int to = firstAfter(byKey, encoded, 0);
+        /** keeps the k most common words in a min-heap whose root is the least common kept, packing count and position */
+        long[] heap = new long[Math.min(k, to - from)];
+        int length = 0;
+        int[] counts = table.counts();
+        for (int i = from; i < to && heap.length > 0; i++) {
+            long entry = (long) counts[byKey[i]] << 32 | (Integer.MAX_VALUE - i);
+            if (length < heap.length) {
+                heap[length] = entry;
+                TopK.up(heap, length++);
+            } else if (entry > heap[0]) {
+                heap[0] = entry;
+                TopK.down(heap, length);
+            }
+        }
+        Arrays.sort(heap);
+        String[] result = new String[k];
+        for (int n = 0; n < heap.length; n++) {
+            result[n] = table.keyAt(byKey[Integer.MAX_VALUE - (int) (heap[heap.length - 1 - n] & 0xFFFFFFFFL)]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the words in alphabetical order, sorting only the words added since the last call
+     * @return the ids of every word in alphabetical order
+     */
+    private int[] sortedIds() {
+        int[] sorted = byKey;
+        if (sorted.length != table.size()) {
+            synchronized (this) {
+                sorted = byKey;
+                if (sorted.length != table.size()) {
+                    sorted = table.sortedIds(sorted);
+                    byKey = sorted;
+                }
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the first position in alphabetical order whose word compares to a prefix as more
+     * than the specified order
+     * @param byKey the ids of the words in alphabetical order
+     * @param prefix the prefix, encoded by KeyArena.encode
+     * @param order -1 to find the first word with the prefix or after it, 0 to find the first after it
+     * @return the position
+     */
+    private int firstAfter(int[] byKey, byte[] prefix, int order) {
+        int low = 0;
+        int high = byKey.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Integer.signum(table.comparePrefix(byKey[mid], prefix)) <= order) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the positions of every word, indexing them on the first call
+     * @return the positional index of the words in order
+     */
+    private PositionalIndex positions() {
+        PositionalIndex index = positions;
+        if (index == null) {
+            synchronized (this) {
+                index = positions;
+                if (index == null) {
+                    index = new PositionalIndex(order(), table.size());
+                    positions = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of times the words occur one after another in the given order. The
+     * positions of every word are indexed on the first call, so later calls only merge the
+     * positions of the words of the phrase
+     * @param words the words of the phrase, normalized as the text was
+     * @return the number of occurrences of the phrase, 0 if any of its words is not in the text
+     * @throws IllegalArgumentException
+     *         thrown when no words are given
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
+     */
+    public int phraseCount(String... words) {
+        load();
+        if (words.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = table.idOf(words[i]);
+            if (ids[i] < 0) {
+                return 0;
+            }
+        }
+        return positions().phraseCount(ids);
+    }
+
+    /**
+     * Returns the k sequences of n words seen most often, in a single pass over the words in
+     * order. Each sequence is counted under a 64-bit hash of its ids alongside the position it
+     * was first seen at, which is where its words are read back from, so no sequence is stored
+     * as objects. Distinct sequences sharing a hash are counted together, which for n of 1 or 2
+     * cannot happen and for longer sequences is vanishingly unlikely
+     * @param n the number of words in each sequence
+     * @param k the number of sequences to return
+     * @return k most frequent sequences, their words separated by a space, sequences of equal
+     *         frequency last seen first, padded with null if there are fewer sequences
+     * @throws IllegalArgumentException
+     *         thrown when n is not positive or k is negative
+     * @throws IllegalStateException
+     *         thrown when the order of the words is not kept
+     */
+    public String[] mostCommonNgrams(int n, int k) {
+        IntList order = order();
+        if (n <= 0 || k < 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] tokens = order.array();
+        LongCounterTable counts = new LongCounterTable();
+        /** stores the first position of every sequence, indexed like counts */
+        IntList first = new IntList();
+        for (int start = 0; start + n <= order.size(); start++) {
+            long key;
+            if (n <= 2) {
+                key = n == 1 ? tokens[start] : (long) tokens[start] << 32 | tokens[start + 1];
+            } else {
+                key = 0;
+                for (int i = start; i < start + n; i++) {
+                    key = mix(key * 0x9E3779B97F4A7C15L + tokens[i]);
+                }
+            }
+            if (counts.add(key, 1) == first.size()) {
+                first.add(start);
+            }
+        }
+        int[] best = TopK.largest(counts.counts(), counts.size(), Math.min(k, counts.size()));
+        String[] result = new String[k];
+        for (int i = 0; i < best.length; i++) {
+            int start = first.get(best[i]);
+            StringBuilder ngram = new StringBuilder(table.keyAt(tokens[start]));
+            for (int j = start + 1; j < start + n; j++) {
+                ngram.append(' ').append(table.keyAt(tokens[j]));
+            }
+            result[i] = ngram.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Spreads the bits of a hash so sequences differing in one id differ in about half the bits
+     * @param h the hash to mix
+     * @return the mixed hash
+     */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
 }
@@ -0,0 +1,85 @@
+import java.util.Map;
+
+/**
+ * An interface of the statistics JmxWordStatMetrics publishes over JMX
+ * @author Shravani Suram
+ */
+public interface WordStatMXBean {
+    /**
+     * Returns the bytes per second of the last tokenizing pass over a file
+     * @return the tokenize throughput in bytes per second
+     */
+    double getTokenizeBytesPerSecond();
+
+    /**
+     * Returns the words per second of the last tokenizing pass
+     * @return the tokenize throughput in words per second
+     */
+    double getTokensPerSecond();
+
+    /**
+     * Returns the number of keys in the last table built
+     * @return the table size
+     */
+    int getTableSize();
+
+    /**
+     * Returns the number of slots in the last table built
+     * @return the table capacity
+     */
+    int getTableCapacity();
+
+    /**
+     * Returns the ratio of keys to slots at which the last table built grows
+     * @return the load factor
+     */
+    float getLoadFactor();
+
+    /**
+     * Returns the longest probe sequence of the last table built
+     * @return the maximum probe length
+     */
+    int getMaxProbeLength();
+
+    /**
+     * Returns the mean probe sequence length of a key of the last table built
+     * @return the mean probe length
+     */
+    double getMeanProbeLength();
+
+    /**
+     * Returns the number of times the last table built grew
+     * @return the resize count
+     */
+    int getResizeCount();
+
+    /**
+     * Returns the total milliseconds spent in each construction phase
+     * @return the milliseconds by phase name
+     */
+    Map<String, Double> getPhaseMillis();
+
+    /**
+     * Returns the number of calls of each query
+     * @return the call counts by query name
+     */
+    Map<String, Long> getQueryCounts();
+
+    /**
+     * Returns the median latency of each query
+     * @return the median microseconds by query name
+     */
+    Map<String, Double> getQueryP50Micros();
+
+    /**
+     * Returns the 99th percentile latency of each query
+     * @return the 99th percentile microseconds by query name
+     */
+    Map<String, Double> getQueryP99Micros();
+
+    /**
+     * Returns the number of times building statistics failed
+     * @return the failure count
+     */
+    long getFailures();
+}
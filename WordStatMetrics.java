@@ -0,0 +1,58 @@
+/**
+ * An interface that receives measurements of how WordStat objects are built and queried.
+ * Every method does nothing by default, and WordStat does not even read the clock while the
+ * metrics are NONE, so an implementation only overrides what it records
+ * @author Shravani Suram
+ */
+public interface WordStatMetrics {
+    /**
+     * Metrics that record nothing, used until WordStat.setMetrics is called
+     */
+    WordStatMetrics NONE = new WordStatMetrics() {
+    };
+
+    /**
+     * Receives the throughput of one tokenizing pass
+     * @param bytes the number of bytes read, or 0 if the text was not read from a file
+     * @param tokens the number of words read
+     * @param nanos the time the pass took
+     */
+    default void tokenized(long bytes, long tokens, long nanos) {
+    }
+
+    /**
+     * Receives the time one phase of building statistics took
+     * @param phase the name of the phase, such as "tokenize" or "rank"
+     * @param nanos the time the phase took
+     */
+    default void phase(String phase, long nanos) {
+    }
+
+    /**
+     * Receives the time one query took
+     * @param query the name of the query method, such as "wordRank"
+     * @param nanos the time the query took
+     */
+    default void query(String query, long nanos) {
+    }
+
+    /**
+     * Receives the shape of a table after statistics were built
+     * @param size the number of keys in the table
+     * @param capacity the number of slots or buckets in the table
+     * @param loadFactor the ratio of keys to slots at which the table grows
+     * @param maxProbe the longest probe sequence or chain of the table
+     * @param meanProbe the mean probe sequence or chain length of a key
+     * @param resizes the number of times the table grew
+     */
+    default void table(int size, int capacity, float loadFactor, int maxProbe, double meanProbe, int resizes) {
+    }
+
+    /**
+     * Receives an exception that a phase of building statistics failed with
+     * @param phase the name of the phase
+     * @param e the exception
+     */
+    default void failed(String phase, Exception e) {
+    }
+}
@@ -0,0 +1,309 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A class that counts words pushed as chunks of bytes, such as those read from a socket or a
+ * message queue, into a WordStat as they arrive. Chunks are normalized on the thread that
+ * delivers them and the words are handed in batches to a thread of their own that counts them;
+ * every so many words a snapshot of the most common words is published to subscribers.
+ *
+ * Demand flows back to the producer: only a few chunks are requested ahead, and when counting
+ * falls behind, the queue of batches fills and no more chunks are requested until it drains, so
+ * the heap stays bounded however fast the producer is. Snapshots are dropped rather than queued
+ * for subscribers that fall behind, since a newer one always follows.
+ *
+ * While the pipeline runs, the WordStat must only be used while holding its lock
+ * @author Shravani Suram
+ */
+public class WordStatPipeline implements Flow.Processor<ByteBuffer, WordStatPipeline.Snapshot> {
+    /**
+     * nested class representing the most common words and their counts at one point of the stream
+     */
+    public static final class Snapshot {
+        /** stores the number of words counted so far */
+        private long tokens;
+        /** stores the number of distinct words counted so far */
+        private int size;
+        /** stores the most common words, most common first */
+        private String[] words;
+        /** stores the count of each of the most common words */
+        private int[] counts;
+
+        /**
+         * Creates a Snapshot
+         * @param tokens the number of words counted so far
+         * @param size the number of distinct words counted so far
+         * @param words the most common words, most common first
+         * @param counts the count of each of the most common words
+         */
+        private Snapshot(long tokens, int size, String[] words, int[] counts) {
+            this.tokens = tokens;
+            this.size = size;
+            this.words = words;
+            this.counts = counts;
+        }
+
+        /**
+         * Returns the number of words counted when the snapshot was taken
+         * @return the number of words
+         */
+        public long tokens() {
+            return tokens;
+        }
+
+        /**
+         * Returns the number of distinct words counted when the snapshot was taken
+         * @return the number of distinct words
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the most common words when the snapshot was taken
+         * @return at most k words, most common first, words of equal frequency last seen first
+         */
+        public String[] mostCommonWords() {
+            return words.clone();
+        }
+
+        /**
+         * Returns the counts of the most common words
+         * @return the count of each word mostCommonWords returns, in the same order
+         */
+        public int[] counts() {
+            return counts.clone();
+        }
+    }
+
+    /**
+     * nested class representing a batch of normalized words on their way to be counted
+     */
+    private static final class Batch {
+        /** stores the characters of the words one after another */
+        private char[] chars = new char[256];
+        /** stores the index in chars after the last character of each word */
+        private int[] ends;
+        /** stores the number of words in the batch */
+        private int size = 0;
+        /** stores the number of characters in chars */
+        private int length = 0;
+
+        /**
+         * Creates an empty Batch
+         * @param capacity the number of words the batch holds
+         */
+        private Batch(int capacity) {
+            ends = new int[capacity];
+        }
+    }
+
+    /** Default number of words counted in one batch */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    /** Default number of chunks requested ahead of those normalized */
+    public static final int DEFAULT_PREFETCH = 4;
+    /** Default number of words counted between snapshots */
+    public static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+
+    /** stores the statistics words are counted into */
+    private WordStat stat;
+    /** stores the number of words counted in one batch */
+    private int batchSize;
+    /** stores the number of chunks requested ahead */
+    private int prefetch;
+    /** stores the number of words counted between snapshots */
+    private long snapshotEvery;
+    /** stores the number of most common words in every snapshot */
+    private int k;
+    /** stores the tokenizer normalizing chunks */
+    private ChunkedTokenizer tokenizer;
+    /** stores the batch being filled */
+    private Batch batch;
+    /** stores the subscription chunks are requested from */
+    private Flow.Subscription upstream;
+    /** stores the publisher handing batches to the counting thread, which blocks when its queue is full */
+    private SubmissionPublisher<Batch> batches;
+    /** stores the publisher handing snapshots to subscribers */
+    private SubmissionPublisher<Snapshot> snapshots = new SubmissionPublisher<Snapshot>();
+    /** stores the thread counting batches */
+    private ExecutorService counter;
+    /** stores the number of words counted, only used by the counting thread */
+    private long tokens = 0;
+    /** stores the number of words counted when the last snapshot was taken, only used by the counting thread */
+    private long snapshotAt = 0;
+    /** completes once every word is counted and the last snapshot is published */
+    private CompletableFuture<WordStat> done = new CompletableFuture<WordStat>();
+
+    /**
+     * Creates a WordStatPipeline with the default batch size, prefetch and snapshot interval
+     * @param stat the statistics words are counted into
+     * @param charset the charset the chunks are encoded in
+     * @param k the number of most common words in every snapshot
+     */
+    public WordStatPipeline(WordStat stat, Charset charset, int k) {
+        this(stat, charset, k, DEFAULT_BATCH_SIZE, DEFAULT_PREFETCH, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /**
+     * Creates a WordStatPipeline. At most prefetch chunks and prefetch batches of batchSize
+     * words are held at once, besides the chunk and batch being worked on
+     * @param stat the statistics words are counted into
+     * @param charset the charset the chunks are encoded in
+     * @param k the number of most common words in every snapshot
+     * @param batchSize the number of words counted in one batch
+     * @param prefetch the number of chunks requested, and batches queued, ahead
+     * @param snapshotEvery the number of words counted between snapshots
+     * @throws IllegalArgumentException
+     *         if k is negative or batchSize, prefetch or snapshotEvery is not positive
+     */
+    public WordStatPipeline(WordStat stat, Charset charset, int k, int batchSize, int prefetch, long snapshotEvery) {
+        if (k < 0 || batchSize <= 0 || prefetch <= 0 || snapshotEvery <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.stat = stat;
+        this.k = k;
+        this.batchSize = batchSize;
+        this.prefetch = prefetch;
+        this.snapshotEvery = snapshotEvery;
+        this.batch = new Batch(batchSize);
+        this.tokenizer = new ChunkedTokenizer(charset, 8192, this::token);
+        this.counter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WordStatPipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batches = new SubmissionPublisher<Batch>(counter, prefetch);
+        batches.subscribe(new Counter());
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+        /** batches are submitted as they fill, blocking here while the counting thread is behind */
+        tokenizer.feed(chunk);
+        upstream.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        batches.closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        tokenizer.finish();
+        if (batch.size > 0) {
+            batches.submit(batch);
+        }
+        batches.close();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Snapshot> subscriber) {
+        snapshots.subscribe(subscriber);
+    }
+
+    /**
+     * Returns a future that completes once every word is counted and the last snapshot is
+     * published, or exceptionally if the stream failed
+     * @return the future completing with the statistics
+     */
+    public CompletableFuture<WordStat> done() {
+        return done;
+    }
+
+    /**
+     * Adds a normalized word to the batch being filled, submitting the batch once it is full
+     * @param buf the buffer holding the word
+     * @param off the index of the first character of the word
+     * @param len the number of characters in the word
+     */
+    private void token(char[] buf, int off, int len) {
+        if (batch.length + len > batch.chars.length) {
+            batch.chars = Arrays.copyOf(batch.chars, Math.max(batch.chars.length * 2, batch.length + len));
+        }
+        System.arraycopy(buf, off, batch.chars, batch.length, len);
+        batch.length += len;
+        batch.ends[batch.size++] = batch.length;
+        if (batch.size == batchSize) {
+            batches.submit(batch);
+            batch = new Batch(batchSize);
+        }
+    }
+
+    /**
+     * Publishes the most common words counted so far, dropping it for subscribers that are behind
+     */
+    private void publish() {
+        Snapshot snapshot;
+        synchronized (stat) {
+            String[] words = stat.mostCommonWords(Math.min(k, stat.size()));
+            int[] counts = new int[words.length];
+            for (int i = 0; i < words.length; i++) {
+                counts[i] = stat.wordCount(words[i]);
+            }
+            snapshot = new Snapshot(tokens, stat.size(), words, counts);
+        }
+        snapshotAt = tokens;
+        snapshots.offer(snapshot, (subscriber, dropped) -> false);
+    }
+
+    /**
+     * nested class representing the counting stage, which takes one batch at a time
+     */
+    private class Counter implements Flow.Subscriber<Batch> {
+        /** stores the subscription batches are requested from */
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Batch item) {
+            synchronized (stat) {
+                stat.addTokens(item.chars, item.ends, item.size);
+            }
+            tokens += item.size;
+            if (tokens - snapshotAt >= snapshotEvery) {
+                publish();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            snapshots.closeExceptionally(throwable);
+            counter.shutdown();
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            /** the last batch may already have published a snapshot of every word */
+            if (tokens != snapshotAt || tokens == 0) {
+                publish();
+            }
+            snapshots.close();
+            counter.shutdown();
+            done.complete(stat);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A class that writes the statistics of a WordStat to a versioned binary file and answers
+ * queries straight from a memory map of that file, so opening it reads almost nothing.
+ *
+ * The file is a 64 byte header followed by int sections: the hash slots of the vocabulary,
+ * the hash, count and rank of every word id, the word ids from most to least frequent,
+ * the offsets of every word's UTF-8 bytes, the UTF-8 bytes themselves, and optionally the
+ * word id of every token in order. The header holds a CRC32 of everything after it
+ * @author Shravani Suram
+ */
+public class WordStatSnapshot {
+    /** Marks the start of every snapshot file: "WSTA" */
+    private static final int MAGIC = 0x57535441;
+    /** Version of the layout written by this class */
+    private static final int VERSION = 1;
+    /** Size of the header in bytes */
+    private static final int HEADER = 64;
+    /** Flag set when the token order is stored */
+    private static final int HAS_ORDER = 1;
+
+    /** stores the file that is mapped */
+    private Path file;
+    /** stores the number of distinct words */
+    private int size;
+    /** stores the number of tokens */
+    private long tokens;
+    /** stores whether the token order is stored */
+    private boolean hasOrder;
+    /** stores the position of the token order in the file */
+    private long orderPosition;
+    /** stores the CRC32 of everything after the header */
+    private long checksum;
+    /** stores the hash slots: the id of the word plus one, or 0 if empty */
+    private IntBuffer slots;
+    /** stores the hash code of every word */
+    private IntBuffer hashes;
+    /** stores the count of every word */
+    private IntBuffer counts;
+    /** stores the rank of every word */
+    private IntBuffer ranks;
+    /** stores the word ids ordered by count and then id, highest first */
+    private IntBuffer byRank;
+    /** stores where the UTF-8 bytes of every word start, with one extra end entry */
+    private IntBuffer offsets;
+    /** stores the UTF-8 bytes of every word */
+    private ByteBuffer strings;
+
+    /**
+     * Writes the statistics to a file
+     * @param file the file to write
+     * @param table the normalized words and their frequencies
+     * @param order the ids of the normalized words in order, or null to leave them out
+     * @param tokens the number of words counted, stored even when the order is left out
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException
+     *         if the words need more than 2 GB of UTF-8
+     */
+    static void write(Path file, IntCounterTable table, IntList order, long tokens) throws IOException {
+        int size = table.size();
+        int[] counts = table.counts();
+        int slotCount = 2;
+        while (slotCount < 2L * size) {
+            slotCount <<= 1;
+        }
+        byte[][] utf8 = new byte[size][];
+        long stringBytes = 0;
+        for (int id = 0; id < size; id++) {
+            utf8[id] = table.keyAt(id).getBytes(StandardCharsets.UTF_8);
+            stringBytes += utf8[id].length;
+        }
+        if (stringBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER);
+            CRC32 crc = new CRC32();
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), crc));
+            /** hash slots placed the same way IntCounterTable places them */
+            int[] slots = new int[slotCount];
+            for (int id = 0; id < size; id++) {
+                int slot = mix(table.keyAt(id).hashCode()) & (slotCount - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                slots[slot] = id + 1;
+            }
+            writeInts(out, slots, slotCount);
+            for (int id = 0; id < size; id++) {
+                out.writeInt(table.keyAt(id).hashCode());
+            }
+            writeInts(out, counts, size);
+            FrequencyHistogram histogram = new FrequencyHistogram(counts, size);
+            for (int id = 0; id < size; id++) {
+                out.writeInt(histogram.rank(counts[id]));
+            }
+            writeInts(out, TopK.largest(counts, size, size), size);
+            int offset = 0;
+            for (int id = 0; id < size; id++) {
+                out.writeInt(offset);
+                offset += utf8[id].length;
+            }
+            out.writeInt(offset);
+            for (int id = 0; id < size; id++) {
+                out.write(utf8[id]);
+            }
+            /** pads the strings so the order starts on an int boundary */
+            for (long pad = (4 - stringBytes % 4) % 4; pad > 0; pad--) {
+                out.write(0);
+            }
+            for (int i = 0; order != null && i < order.size(); i++) {
+                out.writeInt(order.get(i));
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(order == null ? 0 : HAS_ORDER).putInt(size)
+                    .putInt(slotCount).putInt(0).putLong(stringBytes).putLong(tokens).putLong(crc.getValue());
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Writes the first length ints of an array
+     * @param out the stream to write to
+     * @param values the ints to write
+     * @param length the number of ints to write
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Spreads the high bits of the hash code into the low bits used to pick a slot
+     * @param hash the hash code of the word
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Opens a snapshot by mapping its sections; nothing but the header is read
+     * @param file the snapshot file
+     * @return the opened snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot of a known version
+     */
+    static WordStatSnapshot open(Path file) throws IOException {
+        WordStatSnapshot snapshot = new WordStatSnapshot();
+        snapshot.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if (channel.read(header, 0) != HEADER || header.getInt(0) != MAGIC) {
+                throw new IOException("not a WordStat snapshot: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("unsupported WordStat snapshot version " + header.getInt(4));
+            }
+            snapshot.hasOrder = (header.getInt(8) & HAS_ORDER) != 0;
+            int size = header.getInt(12);
+            int slotCount = header.getInt(16);
+            long stringBytes = header.getLong(24);
+            snapshot.size = size;
+            snapshot.tokens = header.getLong(32);
+            snapshot.checksum = header.getLong(40);
+
+            long position = HEADER;
+            snapshot.slots = map(channel, position, 4L * slotCount).asIntBuffer();
+            position += 4L * slotCount;
+            snapshot.hashes = map(channel, position, 4L * size).asIntBuffer();
+            position += 4L * size;
+            snapshot.counts = map(channel, position, 4L * size).asIntBuffer();
+            position += 4L * size;
+            snapshot.ranks = map(channel, position, 4L * size).asIntBuffer();
+            position += 4L * size;
+            snapshot.byRank = map(channel, position, 4L * size).asIntBuffer();
+            position += 4L * size;
+            snapshot.offsets = map(channel, position, 4L * (size + 1)).asIntBuffer();
+            position += 4L * (size + 1);
+            snapshot.strings = map(channel, position, stringBytes);
+            position += stringBytes + (4 - stringBytes % 4) % 4;
+            snapshot.orderPosition = position;
+            if (snapshot.hasOrder && position + 4 * snapshot.tokens > channel.size()) {
+                throw new IOException("truncated WordStat snapshot: " + file);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Maps a read only section of the file; the mapping stays valid after the channel is closed
+     * @param channel the channel of the file
+     * @param position the start of the section
+     * @param length the number of bytes in the section
+     * @return the mapped section
+     * @throws IOException if the section cannot be mapped
+     */
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    /**
+     * Reads the whole file and checks it against the checksum in the header
+     * @throws IOException if the file cannot be read or its checksum does not match
+     */
+    void verify() throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long position = HEADER;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+                position += read;
+            }
+        }
+        if (crc.getValue() != checksum) {
+            throw new IOException("corrupt WordStat snapshot: " + file);
+        }
+    }
+
+    /**
+     * Returns the number of distinct words
+     * @return the number of distinct words
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of words counted, which is stored whether or not their order is
+     * @return the number of tokens
+     */
+    long tokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns whether the order of the tokens was stored
+     * @return true if the token order can be loaded
+     */
+    boolean hasOrder() {
+        return hasOrder;
+    }
+
+    /**
+     * Returns the id of a word by probing the mapped hash slots
+     * @param word the normalized word
+     * @return the id of the word or -1 if it is not in the snapshot
+     */
+    int idOf(String word) {
+        int hash = word.hashCode();
+        int mask = slots.limit() - 1;
+        int slot = mix(hash) & mask;
+        byte[] utf8 = null;
+        int entry;
+        while ((entry = slots.get(slot)) != 0) {
+            int id = entry - 1;
+            if (hashes.get(id) == hash) {
+                if (utf8 == null) {
+                    utf8 = word.getBytes(StandardCharsets.UTF_8);
+                }
+                if (matches(id, utf8)) {
+                    return id;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the stored bytes of a word equal the given bytes
+     * @param id the id of the stored word
+     * @param utf8 the UTF-8 bytes to compare
+     * @return true if they are equal
+     */
+    private boolean matches(int id, byte[] utf8) {
+        int start = offsets.get(id);
+        if (offsets.get(id + 1) - start != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (strings.get(start + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the word with the specified id
+     * @param id the id of the word
+     * @return the word
+     */
+    String keyAt(int id) {
+        int start = offsets.get(id);
+        byte[] utf8 = new byte[offsets.get(id + 1) - start];
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = strings.get(start + i);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the count of the word with the specified id
+     * @param id the id of the word
+     * @return the count of the word
+     */
+    int count(int id) {
+        return counts.get(id);
+    }
+
+    /**
+     * Returns the rank of the word with the specified id
+     * @param id the id of the word
+     * @return the rank of the word
+     */
+    int rank(int id) {
+        return ranks.get(id);
+    }
+
+    /**
+     * Returns the id of the word at a position in the order from most to least frequent
+     * @param position the position, 0 being the most frequent word
+     * @return the id of the word at that position
+     */
+    int byRank(int position) {
+        return byRank.get(position);
+    }
+
+    /**
+     * Reads the words and their counts into a table on the heap, keeping their ids
+     * @return the normalized words and their frequencies
+     */
+    IntCounterTable loadTable() {
+        IntCounterTable table = new IntCounterTable(size);
+        for (int id = 0; id < size; id++) {
+            table.add(keyAt(id), count(id));
+        }
+        return table;
+    }
+
+    /**
+     * Reads the stored token order onto the heap
+     * @return the ids of the tokens in order, or null if the order was not stored
+     * @throws IOException if the file cannot be read
+     */
+    IntList loadOrder() throws IOException {
+        if (!hasOrder) {
+            return null;
+        }
+        IntList order = new IntList((int) Math.min(tokens, Integer.MAX_VALUE - 8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long position = orderPosition;
+            long end = orderPosition + 4 * tokens;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    throw new IOException("truncated WordStat snapshot: " + file);
+                }
+                position += read;
+                buffer.flip();
+                while (buffer.remaining() >= 4) {
+                    order.add(buffer.getInt());
+                }
+                /** keeps a partly read int for the next read */
+                position -= buffer.remaining();
+            }
+        }
+        return order;
+    }
+}
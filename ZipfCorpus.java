@@ -0,0 +1,142 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A class that generates synthetic text whose word frequencies follow a Zipf distribution,
+ * seeded so the same corpus is produced on every machine
+ * @author Shravani Suram
+ */
+public class ZipfCorpus {
+    /** Number of words written on each line of generated text */
+    private static final int WORDS_PER_LINE = 12;
+
+    /** stores the distinct words, most frequent first */
+    private String[] vocabulary;
+    /** stores the cumulative probability of drawing each word */
+    private double[] cumulative;
+    /** stores the random number generator */
+    private Random random;
+
+    /**
+     * Creates a ZipfCorpus
+     * @param vocabularySize the number of distinct words
+     * @param skew the Zipf exponent; the word of rank r is drawn with probability proportional to 1 / r^skew
+     * @param seed the seed of the random number generator
+     * @throws IllegalArgumentException
+     *         if vocabularySize is not positive or skew is negative
+     */
+    public ZipfCorpus(int vocabularySize, double skew, long seed) {
+        if (vocabularySize <= 0 || skew < 0) {
+            throw new IllegalArgumentException();
+        }
+        vocabulary = new String[vocabularySize];
+        cumulative = new double[vocabularySize];
+        double total = 0;
+        for (int r = 0; r < vocabularySize; r++) {
+            vocabulary[r] = spell(r);
+            total += 1.0 / Math.pow(r + 1, skew);
+            cumulative[r] = total;
+        }
+        for (int r = 0; r < vocabularySize; r++) {
+            cumulative[r] /= total;
+        }
+        random = new Random(seed);
+    }
+
+    /**
+     * Returns a distinct lowercase word for every rank, shorter words for more frequent ranks
+     * @param rank the rank of the word
+     * @return the word
+     */
+    private static String spell(int rank) {
+        StringBuilder builder = new StringBuilder();
+        int n = rank;
+        do {
+            builder.append((char) ('a' + n % 26));
+            n = n / 26 - 1;
+        } while (n >= 0);
+        return builder.toString();
+    }
+
+    /**
+     * Draws the next word
+     * @return a word of the vocabulary
+     */
+    public String next() {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        /** finds the first word whose cumulative probability reaches u */
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return vocabulary[low];
+    }
+
+    /**
+     * Draws words into an array
+     * @param count the number of words to draw
+     * @return the drawn words
+     */
+    public String[] words(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = next();
+        }
+        return words;
+    }
+
+    /**
+     * Draws lines of text into an array, as a WordStat would be given them
+     * @param count the number of words to draw
+     * @return lines of space separated words
+     */
+    public String[] lines(int count) {
+        String[] lines = new String[(count + WORDS_PER_LINE - 1) / WORDS_PER_LINE];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            builder.setLength(0);
+            for (int j = 0; j < WORDS_PER_LINE && i * WORDS_PER_LINE + j < count; j++) {
+                if (j > 0) {
+                    builder.append(' ');
+                }
+                builder.append(next());
+            }
+            lines[i] = builder.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Draws words and writes them to a UTF-8 file as lines of text
+     * @param file the file to write
+     * @param count the number of words to draw
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, long count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < count; i++) {
+                writer.write(next());
+                writer.write((i + 1) % WORDS_PER_LINE == 0 ? '\n' : ' ');
+            }
+        }
+    }
+
+    /**
+     * Returns the word of the specified rank
+     * @param rank the rank of the word, 0 being the most frequent
+     * @return the word of that rank
+     */
+    public String word(int rank) {
+        return vocabulary[rank];
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A class doing the work the JMH benchmarks time on a generated Zipf corpus, seeded so the same
+ * corpus is produced on every machine. Queries are not thread safe; every benchmark runs on one thread
+ * @author Shravani Suram
+ */
+public class ZipfWorkload implements benchmarks.Workload {
+    /** Seed of every generated corpus */
+    private static final long SEED = 42;
+
+    /** stores the words of the vocabulary by rank */
+    private ZipfCorpus corpus;
+    /** stores the corpus written as a UTF-8 file */
+    private Path file;
+    /** stores the size of the file in bytes */
+    private long fileBytes;
+    /** stores the corpus as lines of text */
+    private String[] lines;
+    /** stores the number of characters in the lines, counting one for every line break */
+    private long lineChars;
+    /** stores the corpus as single words */
+    private String[] words;
+    /** stores every word of the corpus in a HashTable, or null until fillTables is called */
+    private HashTable<Integer> hashTable;
+    /** stores every word of the corpus in an IntCounterTable, or null until fillTables is called */
+    private IntCounterTable intTable;
+    /** stores the statistics of the corpus file, or null until buildQueries is called */
+    private WordStat stat;
+    /** stores words drawn from the same distribution as the corpus */
+    private String[] probes;
+    /** stores the position of the next probe */
+    private int next;
+    /** chooses the base word and side of every collocation query */
+    private Random random;
+
+    @Override
+    public void generate(int vocabulary, double skew) throws IOException {
+        corpus = new ZipfCorpus(vocabulary, skew, SEED);
+        file = Files.createTempFile("zipf", ".txt");
+        new ZipfCorpus(vocabulary, skew, SEED).write(file, TOKENS);
+        fileBytes = Files.size(file);
+        lines = new ZipfCorpus(vocabulary, skew, SEED).lines(TOKENS);
+        lineChars = 0;
+        for (String line : lines) {
+            lineChars += line.length() + 1;
+        }
+        words = new ZipfCorpus(vocabulary, skew, SEED).words(TOKENS);
+        probes = new ZipfCorpus(vocabulary, skew, SEED + 1).words(1000);
+    }
+
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public long fileBytes() {
+        return fileBytes;
+    }
+
+    @Override
+    public long lineChars() {
+        return lineChars;
+    }
+
+    @Override
+    public long tokenizeFile() {
+        return new Tokenizer(file.toString()).wordList().size();
+    }
+
+    @Override
+    public long streamFile() throws IOException {
+        long[] count = new long[1];
+        Tokenizer.stream(file.toString(), StandardCharsets.UTF_8, (buf, off, len) -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public long tokenizeArray() {
+        return new Tokenizer(lines).wordList().size();
+    }
+
+    @Override
+    public long streamArray() {
+        long[] count = new long[1];
+        Tokenizer.stream(lines, (buf, off, len) -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public void fillTables() {
+        hashTable = new HashTable<Integer>();
+        intTable = new IntCounterTable();
+        for (String key : words) {
+            hashTable.put(key, 1);
+            intTable.put(key, 1);
+        }
+    }
+
+    @Override
+    public long hashTablePut() {
+        HashTable<Integer> table = new HashTable<Integer>();
+        for (String key : words) {
+            table.put(key, 1);
+        }
+        return table.size();
+    }
+
+    @Override
+    public long hashTableGet() {
+        long sum = 0;
+        for (String key : words) {
+            sum += hashTable.get(key);
+        }
+        return sum;
+    }
+
+    @Override
+    public long intCounterTablePut() {
+        IntCounterTable table = new IntCounterTable();
+        for (String key : words) {
+            table.put(key, 1);
+        }
+        return table.size();
+    }
+
+    @Override
+    public long intCounterTableGet() {
+        long sum = 0;
+        for (String key : words) {
+            sum += intTable.get(key);
+        }
+        return sum;
+    }
+
+    @Override
+    public void buildQueries() {
+        stat = new WordStat(file.toString());
+        next = 0;
+        random = new Random(SEED);
+    }
+
+    @Override
+    public int newFromFile() {
+        return new WordStat(file.toString()).size();
+    }
+
+    @Override
+    public int newFromArray() {
+        return new WordStat(lines).size();
+    }
+
+    @Override
+    public int builderFromFile() throws IOException {
+        return WordStat.builder().build(file.toString()).size();
+    }
+
+    @Override
+    public String[] mostCommonWords() {
+        return stat.mostCommonWords(100);
+    }
+
+    @Override
+    public int wordRank() {
+        next = next + 1 == probes.length ? 0 : next + 1;
+        return stat.wordRank(probes[next]);
+    }
+
+    @Override
+    public String[] mostCommonCollocations() {
+        return stat.mostCommonCollocations(10, corpus.word(random.nextInt(100)), random.nextBoolean());
+    }
+}
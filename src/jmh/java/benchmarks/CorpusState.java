@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A JMH fixture generating a Zipf corpus once for every vocabulary size and skew, so every
+ * benchmark run with the same parameters reads the same text on every machine
+ * @author Shravani Suram
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    /** stores the number of distinct words */
+    @Param({"1000", "100000", "1000000"})
+    public int vocabulary;
+    /** stores the Zipf exponent */
+    @Param({"0.8", "1.0", "1.2"})
+    public double skew;
+
+    /** stores the workload holding the corpus */
+    Workload workload;
+
+    /**
+     * Generates the corpus
+     * @throws IOException if the corpus file cannot be written
+     */
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        workload = Workload.create();
+        workload.generate(vocabulary, skew);
+    }
+
+    /**
+     * Deletes the corpus file
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        workload.delete();
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of HashTable and IntCounterTable put and get, reported per key, at the vocabulary
+ * sizes and skews of the corpus
+ * @author Shravani Suram
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(Workload.TOKENS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashTableBenchmark {
+    /**
+     * nested class filling the tables the get benchmarks read
+     */
+    @State(Scope.Benchmark)
+    public static class Filled {
+        /**
+         * Fills the tables once for every combination of parameters
+         * @param corpus the generated corpus
+         */
+        @Setup(Level.Trial)
+        public void fill(CorpusState corpus) {
+            corpus.workload.fillTables();
+        }
+    }
+
+    /**
+     * Puts every word of the corpus into a new HashTable
+     * @param corpus the generated corpus
+     * @return the number of distinct words
+     */
+    @Benchmark
+    public long hashTablePut(CorpusState corpus) {
+        return corpus.workload.hashTablePut();
+    }
+
+    /**
+     * Gets every word of the corpus from a filled HashTable
+     * @param corpus the generated corpus
+     * @param filled makes sure the tables are filled
+     * @return the sum of the values
+     */
+    @Benchmark
+    public long hashTableGet(CorpusState corpus, Filled filled) {
+        return corpus.workload.hashTableGet();
+    }
+
+    /**
+     * Puts every word of the corpus into a new IntCounterTable
+     * @param corpus the generated corpus
+     * @return the number of distinct words
+     */
+    @Benchmark
+    public long intCounterTablePut(CorpusState corpus) {
+        return corpus.workload.intCounterTablePut();
+    }
+
+    /**
+     * Gets every word of the corpus from a filled IntCounterTable
+     * @param corpus the generated corpus
+     * @param filled makes sure the tables are filled
+     * @return the sum of the values
+     */
+    @Benchmark
+    public long intCounterTableGet(CorpusState corpus, Filled filled) {
+        return corpus.workload.intCounterTableGet();
+    }
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of Tokenizer throughput on a file and on an array. Besides the passes per second,
+ * every benchmark reports the megabytes of text it tokenizes per second
+ * @author Shravani Suram
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+    /**
+     * nested class counting the bytes tokenized, which JMH reports as a rate next to the score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        /** stores the number of bytes tokenized in this iteration */
+        private long count;
+
+        /**
+         * Starts every iteration from zero
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            count = 0;
+        }
+
+        /**
+         * Returns the megabytes tokenized, which JMH divides by the time of the iteration
+         * @return the megabytes tokenized in this iteration
+         */
+        public double megabytes() {
+            return count / 1e6;
+        }
+    }
+
+    /**
+     * Tokenizes the file into a list of words
+     * @param corpus the generated corpus
+     * @param bytes counts the bytes tokenized
+     * @return the number of words
+     */
+    @Benchmark
+    public long file(CorpusState corpus, Bytes bytes) {
+        bytes.count += corpus.workload.fileBytes();
+        return corpus.workload.tokenizeFile();
+    }
+
+    /**
+     * Streams the words of the file to a sink without creating a String for each
+     * @param corpus the generated corpus
+     * @param bytes counts the bytes tokenized
+     * @return the number of words
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public long streamFile(CorpusState corpus, Bytes bytes) throws IOException {
+        bytes.count += corpus.workload.fileBytes();
+        return corpus.workload.streamFile();
+    }
+
+    /**
+     * Tokenizes the lines into a list of words
+     * @param corpus the generated corpus
+     * @param bytes counts the bytes tokenized
+     * @return the number of words
+     */
+    @Benchmark
+    public long array(CorpusState corpus, Bytes bytes) {
+        bytes.count += corpus.workload.lineChars();
+        return corpus.workload.tokenizeArray();
+    }
+
+    /**
+     * Streams the words of the lines to a sink without creating a String for each
+     * @param corpus the generated corpus
+     * @param bytes counts the bytes tokenized
+     * @return the number of words
+     */
+    @Benchmark
+    public long streamArray(CorpusState corpus, Bytes bytes) {
+        bytes.count += corpus.workload.lineChars();
+        return corpus.workload.streamArray();
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of building a WordStat and of the latency of its most common word, rank and
+ * collocation queries
+ * @author Shravani Suram
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordStatBenchmark {
+    /**
+     * nested class building the WordStat the query benchmarks ask
+     */
+    @State(Scope.Benchmark)
+    public static class Built {
+        /**
+         * Builds the statistics once for every combination of parameters
+         * @param corpus the generated corpus
+         */
+        @Setup(Level.Trial)
+        public void build(CorpusState corpus) {
+            corpus.workload.buildQueries();
+        }
+    }
+
+    /**
+     * Builds a WordStat of the corpus file
+     * @param corpus the generated corpus
+     * @return the number of distinct words
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int newFromFile(CorpusState corpus) {
+        return corpus.workload.newFromFile();
+    }
+
+    /**
+     * Builds a WordStat of the corpus lines
+     * @param corpus the generated corpus
+     * @return the number of distinct words
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int newFromArray(CorpusState corpus) {
+        return corpus.workload.newFromArray();
+    }
+
+    /**
+     * Builds a WordStat of the corpus file that only counts the words
+     * @param corpus the generated corpus
+     * @return the number of distinct words
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int builderFromFile(CorpusState corpus) throws IOException {
+        return corpus.workload.builderFromFile();
+    }
+
+    /**
+     * Finds the 100 most common words
+     * @param corpus the generated corpus
+     * @param built makes sure the statistics are built
+     * @return the most common words
+     */
+    @Benchmark
+    public String[] mostCommonWords(CorpusState corpus, Built built) {
+        return corpus.workload.mostCommonWords();
+    }
+
+    /**
+     * Ranks one word drawn from the distribution of the corpus
+     * @param corpus the generated corpus
+     * @param built makes sure the statistics are built
+     * @return the rank of the word
+     */
+    @Benchmark
+    public int wordRank(CorpusState corpus, Built built) {
+        return corpus.workload.wordRank();
+    }
+
+    /**
+     * Finds the 10 words most often before or after one of the 100 most common words
+     * @param corpus the generated corpus
+     * @param built makes sure the statistics are built
+     * @return the most common collocations
+     */
+    @Benchmark
+    public String[] mostCommonCollocations(CorpusState corpus, Built built) {
+        return corpus.workload.mostCommonCollocations();
+    }
+}
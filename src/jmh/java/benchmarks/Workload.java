@@ -0,0 +1,150 @@
+package benchmarks;
+
+import java.io.IOException;
+
+/**
+ * An interface of the work the JMH benchmarks time. JMH only accepts benchmarks in a named package,
+ * which cannot see the classes of the default package, so the work is done by ZipfWorkload in the
+ * default package and reached through this interface
+ * @author Shravani Suram
+ */
+public interface Workload {
+    /** Number of words in every generated corpus */
+    int TOKENS = 200_000;
+
+    /**
+     * Loads the ZipfWorkload of the default package
+     * @return a new workload with no corpus generated yet
+     * @throws IllegalStateException
+     *         if ZipfWorkload is not on the class path
+     */
+    static Workload create() {
+        try {
+            return Class.forName("ZipfWorkload").asSubclass(Workload.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Generates a Zipf corpus as a file, as lines and as single words
+     * @param vocabulary the number of distinct words
+     * @param skew the Zipf exponent
+     * @throws IOException if the file cannot be written
+     */
+    void generate(int vocabulary, double skew) throws IOException;
+
+    /**
+     * Deletes the corpus file
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException;
+
+    /**
+     * Returns the size of the corpus file
+     * @return the number of bytes in the file
+     */
+    long fileBytes();
+
+    /**
+     * Returns the size of the corpus lines
+     * @return the number of characters in the lines, counting one for every line break
+     */
+    long lineChars();
+
+    /**
+     * Tokenizes the file into a list of words
+     * @return the number of words
+     */
+    long tokenizeFile();
+
+    /**
+     * Streams the words of the file to a sink without creating a String for each
+     * @return the number of words
+     * @throws IOException if the file cannot be read
+     */
+    long streamFile() throws IOException;
+
+    /**
+     * Tokenizes the lines into a list of words
+     * @return the number of words
+     */
+    long tokenizeArray();
+
+    /**
+     * Streams the words of the lines to a sink without creating a String for each
+     * @return the number of words
+     */
+    long streamArray();
+
+    /**
+     * Fills a HashTable and an IntCounterTable with every word, for the get benchmarks
+     */
+    void fillTables();
+
+    /**
+     * Puts every word into a new HashTable
+     * @return the number of distinct words
+     */
+    long hashTablePut();
+
+    /**
+     * Gets every word from the filled HashTable
+     * @return the sum of the values
+     */
+    long hashTableGet();
+
+    /**
+     * Puts every word into a new IntCounterTable
+     * @return the number of distinct words
+     */
+    long intCounterTablePut();
+
+    /**
+     * Gets every word from the filled IntCounterTable
+     * @return the sum of the values
+     */
+    long intCounterTableGet();
+
+    /**
+     * Builds the WordStat of the file that the query benchmarks ask, and the words they ask about
+     */
+    void buildQueries();
+
+    /**
+     * Builds a WordStat of the file
+     * @return the number of distinct words
+     */
+    int newFromFile();
+
+    /**
+     * Builds a WordStat of the lines
+     * @return the number of distinct words
+     */
+    int newFromArray();
+
+    /**
+     * Builds a WordStat of the file that only counts the words
+     * @return the number of distinct words
+     * @throws IOException if the file cannot be read
+     */
+    int builderFromFile() throws IOException;
+
+    /**
+     * Finds the 100 most common words
+     * @return the most common words
+     */
+    String[] mostCommonWords();
+
+    /**
+     * Ranks the next of a thousand words drawn from the distribution of the corpus
+     * @return the rank of the word
+     */
+    int wordRank();
+
+    /**
+     * Finds the 10 words most often before or after a random one of the 100 most common words
+     * @return the most common collocations
+     */
+    String[] mostCommonCollocations();
+}